@@ -0,0 +1,24 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream;
+
+/**
+ * Extension of the {@link DataInterceptor} interface for interceptors whose result
+ * of {@link #getObjectClass(Object)} depends only on the runtime class of the object.
+ * The context resolves the graph of such classes just once and keeps it in a cache, instead
+ * of calling the interceptor for every object being marshalled
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public interface CacheableDataInterceptor extends DataInterceptor {
+
+	/**
+	 * Return true if the class returned by {@link #getObjectClass(Object)} is the same
+	 * for all objects of the given runtime class, so it can be cached
+	 * @param objectClass the runtime class of the object, i.e, <code>obj.getClass()</code>
+	 * @return true if the result can be cached for the class
+	 */
+	boolean isObjectClassCacheable(Class objectClass);
+}
@@ -20,6 +20,20 @@ public interface DataMarshaller {
 
 	void marshall(OutputStream output, ObjectProvider provider);
 
+	/**
+	 * Declare the output stream that will receive the index of the objects of the root object
+	 * graph, generated while the document is written. The index contains the position in the
+	 * document of each object and, optionally, the value of one of its attributes as the key
+	 * of the object, and it's written when the document is finished. The index may be read with
+	 * {@link DataStreamIndex#read(java.io.InputStream)} and used by the {@link DataUnmarshaller}
+	 * to read a single object or a range of objects with no need to read the whole document
+	 * @param output the output stream of the index, or null to not generate the index. The
+	 * stream is not closed
+	 * @param keyAttribute the name of the attribute used as the key of the objects, or null
+	 * if the objects have no key
+	 */
+	void setIndexOutput(OutputStream output, String keyAttribute);
+
 	/**
 	 * Add a custom property reader to be used when generating
 	 * the document
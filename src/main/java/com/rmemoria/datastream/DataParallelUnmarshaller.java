@@ -0,0 +1,47 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream;
+
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Unmarshaller that reads the objects of a collection in parallel. The document is split
+ * in chunks containing complete elements of the collection, and each chunk is read by a
+ * different thread. It's intended to be used with huge documents whose root element is
+ * a collection of objects (declared with objectCollection in the schema). Other documents
+ * are read by a single thread.
+ * <p>
+ * The objects are sent to the {@link ObjectConsumer} in the thread that called
+ * {@link #unmarshall(InputStream, ObjectConsumer)}, one at a time, so the consumer doesn't
+ * have to be thread safe. The method {@link ObjectConsumer#startObjectReading(Class)} is called
+ * just before the object is sent to the consumer. Interceptors and custom property writers are
+ * called by the threads reading the chunks, so they must be thread safe.
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public interface DataParallelUnmarshaller extends DataUnmarshaller {
+
+	/**
+	 * Define the executor that will run the threads reading the chunks. If no executor
+	 * is defined, a pool with one thread per available processor is created for each
+	 * document read, and shut down at the end
+	 * @param executor instance of {@link ExecutorService}
+	 */
+	void setExecutor(ExecutorService executor);
+
+	/**
+	 * Define if the objects are sent to the consumer in the same order they are declared
+	 * in the document. If false, objects are sent as soon as they are read. Default is true
+	 * @param ordered boolean value
+	 */
+	void setOrdered(boolean ordered);
+
+	/**
+	 * Define the minimum size, in bytes, of each chunk read by a thread. Default is 1 MB
+	 * @param chunkSize the number of bytes
+	 */
+	void setChunkSize(int chunkSize);
+}
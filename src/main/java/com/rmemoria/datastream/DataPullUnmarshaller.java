@@ -0,0 +1,58 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream;
+
+import java.io.InputStream;
+import java.util.NoSuchElementException;
+
+/**
+ * Unmarshaller that reads the objects on demand. Instead of reading the whole
+ * document at once, the client opens the input stream and pulls each object
+ * of the root graph (or of the collection declared in the root) when it needs it.
+ * The document is read just until the next object is available, so reading can be
+ * paused or stopped at any time.
+ * <p>
+ * Example:
+ * <pre>
+ * DataPullUnmarshaller um = (DataPullUnmarshaller)context.createUnmarshaller(StreamFileTypeXMLPull.class);
+ * um.open(stream);
+ * while (um.hasNext()) {
+ *     Object obj = um.next();
+ *     ...
+ * }
+ * um.close();
+ * </pre>
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public interface DataPullUnmarshaller extends DataUnmarshaller {
+
+	/**
+	 * Start reading the objects from the given input stream. If another stream was
+	 * opened before, it's closed
+	 * @param stream instance of the {@link InputStream} containing the objects
+	 */
+	void open(InputStream stream);
+
+	/**
+	 * Return true if there is another object to be read from the stream
+	 * @return boolean value
+	 */
+	boolean hasNext();
+
+	/**
+	 * Read the next object from the stream. The object may be null if its element
+	 * has no value in the document
+	 * @return the object read
+	 * @throws NoSuchElementException if there is no more object to read
+	 */
+	Object next();
+
+	/**
+	 * Stop reading the objects. The input stream given in {@link #open(InputStream)}
+	 * is not closed, since it belongs to the client
+	 */
+	void close();
+}
@@ -0,0 +1,69 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream;
+
+import java.io.Serializable;
+
+/**
+ * A position in a document where the reading of objects may be resumed. The checkpoint
+ * is taken after an object of the collection declared in the root is read, and contains
+ * the position, in bytes, of the end of the object in the document, the position of the end
+ * of the start tag of the collection and the number of objects read until the checkpoint.
+ * <p>
+ * The checkpoint is returned by {@link DataUnmarshaller#getCheckpoint()} and may be stored
+ * by the client (as is, or by its values) in order to resume the reading with
+ * {@link DataUnmarshaller#unmarshall(java.io.File, DataStreamCheckpoint, ObjectConsumer)}
+ * if the reading fails
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class DataStreamCheckpoint implements Serializable {
+	private static final long serialVersionUID = 6236385452409738511L;
+
+	private final long headerLength;
+	private final long offset;
+	private final long objectCount;
+
+	/**
+	 * Create a checkpoint
+	 * @param headerLength the number of bytes in the document until the end of the start tag of the collection
+	 * @param offset the position, in bytes, of the end of the last object read
+	 * @param objectCount the number of objects read until the checkpoint
+	 */
+	public DataStreamCheckpoint(long headerLength, long offset, long objectCount) {
+		super();
+		this.headerLength = headerLength;
+		this.offset = offset;
+		this.objectCount = objectCount;
+	}
+
+	/**
+	 * @return the number of bytes in the document until the end of the start tag of the collection
+	 */
+	public long getHeaderLength() {
+		return headerLength;
+	}
+
+	/**
+	 * @return the position, in bytes, of the end of the last object read
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return the number of objects read until the checkpoint
+	 */
+	public long getObjectCount() {
+		return objectCount;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return "DataStreamCheckpoint [offset=" + offset + ", objectCount=" + objectCount + "]";
+	}
+}
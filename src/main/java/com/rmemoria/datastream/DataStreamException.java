@@ -16,6 +16,7 @@ public class DataStreamException extends RuntimeException {
 	
 	private ClassMetaData currentClass;
 	private PropertyMetaData currentProperty;
+	private DataStreamLocation location;
 
 	/**
 	 * Default constructor with a message
@@ -37,6 +38,49 @@ public class DataStreamException extends RuntimeException {
 		this.currentProperty = prop;
 	}
 
+	/**
+	 * Raise an exception with the location in the document where the error happened
+	 * @param location the location in the document
+	 * @param message
+	 */
+	public DataStreamException(DataStreamLocation location, String message) {
+		super(message);
+		this.location = location;
+	}
+
+	/**
+	 * Raise an exception with class and/or property information and the location in the
+	 * document where the error happened
+	 * @param clazz
+	 * @param prop
+	 * @param location the location in the document
+	 * @param message
+	 */
+	public DataStreamException(ClassMetaData clazz, PropertyMetaData prop, DataStreamLocation location, String message) {
+		super(message);
+		this.currentClass = clazz;
+		this.currentProperty = prop;
+		this.location = location;
+	}
+
+	/**
+	 * Return the message of the exception, including the location in the document, if available
+	 * @return String value
+	 */
+	@Override
+	public String getMessage() {
+		String msg = super.getMessage();
+		return location != null ? msg + " (at " + location + ")" : msg;
+	}
+
+	/**
+	 * Return the location in the document where the error happened
+	 * @return instance of {@link DataStreamLocation}, or null if not available
+	 */
+	public DataStreamLocation getLocation() {
+		return location;
+	}
+
 	/**
 	 * Return information, if available, of the current class being processed when exception was thrown
 	 * @return the currentClass
@@ -0,0 +1,214 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the objects of the root object graph in a document, generated by the
+ * {@link DataMarshaller} when an index output is declared with
+ * {@link DataMarshaller#setIndexOutput(OutputStream, String)}. For each object, the index
+ * keeps the position, in bytes, of its element in the document and, optionally, the value
+ * of one of its attributes, used as a key to find the object.
+ * <p>
+ * With the index, the {@link DataUnmarshaller} reads just the objects required, going
+ * directly to their position in the file, instead of reading the document from its beginning.
+ * <p>
+ * The index is stored in a compact binary format, where the positions are stored as
+ * the difference to the position of the previous object
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class DataStreamIndex {
+
+	private static final int MAGIC = 0x44534958;
+	private static final int VERSION = 1;
+
+	private long[] offsets = new long[64];
+	private String[] keys;
+	private int size;
+	// position of the objects by its key, created on demand
+	private Map<String, Integer> positions;
+
+	/**
+	 * Create an empty index
+	 * @param keyed true if the objects in the index have a key
+	 */
+	public DataStreamIndex(boolean keyed) {
+		super();
+		if (keyed) {
+			keys = new String[64];
+		}
+	}
+
+	/**
+	 * Include a new object in the index
+	 * @param offset the position, in bytes, of the element of the object in the document
+	 * @param key the key of the object, or null if the index has no key
+	 */
+	public void add(long offset, String key) {
+		if (size == offsets.length) {
+			offsets = Arrays.copyOf(offsets, size * 2);
+			if (keys != null) {
+				keys = Arrays.copyOf(keys, size * 2);
+			}
+		}
+		offsets[size] = offset;
+		if (keys != null) {
+			keys[size] = key;
+		}
+		size++;
+		positions = null;
+	}
+
+	/**
+	 * @return the number of objects in the index
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Return the position of the element of an object in the document
+	 * @param index the index of the object, in the order it's declared in the document
+	 * @return the position, in bytes, from the beginning of the document
+	 */
+	public long getOffset(int index) {
+		checkIndex(index);
+		return offsets[index];
+	}
+
+	/**
+	 * Return the key of an object
+	 * @param index the index of the object, in the order it's declared in the document
+	 * @return the key, or null if the index has no key
+	 */
+	public String getKey(int index) {
+		checkIndex(index);
+		return keys != null ? keys[index] : null;
+	}
+
+	/**
+	 * Return the index of the object with the given key
+	 * @param key the key of the object
+	 * @return the index of the object, or -1 if there is no object with the key
+	 */
+	public int indexOf(String key) {
+		if (keys == null) {
+			throw new DataStreamException("No key was declared when the index was generated");
+		}
+		if (positions == null) {
+			positions = new HashMap<String, Integer>(size * 4 / 3 + 1);
+			for (int i = size - 1; i >= 0; i--) {
+				positions.put(keys[i], i);
+			}
+		}
+		Integer pos = positions.get(key);
+		return pos != null ? pos : -1;
+	}
+
+	/**
+	 * @return true if the objects in the index have a key
+	 */
+	public boolean isKeyed() {
+		return keys != null;
+	}
+
+	/**
+	 * Write the index to the given output stream. The output stream is not closed
+	 * @param out instance of {@link OutputStream}
+	 * @throws IOException
+	 */
+	public void write(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeByte(VERSION);
+		data.writeBoolean(keys != null);
+		data.writeInt(size);
+		long prev = 0;
+		for (int i = 0; i < size; i++) {
+			writeVarLong(data, offsets[i] - prev);
+			prev = offsets[i];
+			if (keys != null) {
+				data.writeBoolean(keys[i] != null);
+				if (keys[i] != null) {
+					data.writeUTF(keys[i]);
+				}
+			}
+		}
+		data.flush();
+	}
+
+	/**
+	 * Read an index written by {@link #write(OutputStream)}. The input stream is not closed
+	 * @param in instance of {@link InputStream}
+	 * @return instance of {@link DataStreamIndex}
+	 * @throws IOException
+	 */
+	public static DataStreamIndex read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if ((data.readInt() != MAGIC) || (data.readByte() != VERSION)) {
+			throw new DataStreamException("Invalid index format");
+		}
+		boolean keyed = data.readBoolean();
+		int count = data.readInt();
+
+		DataStreamIndex index = new DataStreamIndex(keyed);
+		index.offsets = new long[Math.max(count, 1)];
+		if (keyed) {
+			index.keys = new String[Math.max(count, 1)];
+		}
+		long offset = 0;
+		for (int i = 0; i < count; i++) {
+			offset += readVarLong(data);
+			String key = null;
+			if ((keyed) && (data.readBoolean())) {
+				key = data.readUTF();
+			}
+			index.add(offset, key);
+		}
+		return index;
+	}
+
+	/**
+	 * Write a positive number using 7 bits by byte
+	 */
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int)value);
+	}
+
+	/**
+	 * Read a number written by {@link #writeVarLong(DataOutputStream, long)}
+	 */
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0;
+		int shift = 0;
+		while (true) {
+			int b = in.readUnsignedByte();
+			value |= (long)(b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+			shift += 7;
+		}
+	}
+
+	private void checkIndex(int index) {
+		if ((index < 0) || (index >= size)) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Location in the document where an error happened. The location contains the path of
+ * the elements from the root element to the element being read, and its position in the
+ * document, when available. The location is just rendered as text when the message of
+ * the {@link DataStreamException} is read
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class DataStreamLocation implements Serializable {
+	private static final long serialVersionUID = -2920283613474862342L;
+
+	private final String[] path;
+	private final int lineNumber;
+	private final int columnNumber;
+	private final long offset;
+
+	/**
+	 * Create a location
+	 * @param path the names of the elements from the root element to the current element
+	 * @param lineNumber the line number in the document, or -1 if not available
+	 * @param columnNumber the column number in the document, or -1 if not available
+	 * @param offset the position, in bytes, in the document, or -1 if not available
+	 */
+	public DataStreamLocation(String[] path, int lineNumber, int columnNumber, long offset) {
+		super();
+		this.path = path;
+		this.lineNumber = lineNumber;
+		this.columnNumber = columnNumber;
+		this.offset = offset;
+	}
+
+	/**
+	 * @return the names of the elements from the root element to the current element
+	 */
+	public List<String> getPath() {
+		return Collections.unmodifiableList(Arrays.asList(path));
+	}
+
+	/**
+	 * @return the depth of the current element, where the root element is in depth 1
+	 */
+	public int getDepth() {
+		return path.length;
+	}
+
+	/**
+	 * @return the line number in the document, or -1 if not available
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * @return the column number in the document, or -1 if not available
+	 */
+	public int getColumnNumber() {
+		return columnNumber;
+	}
+
+	/**
+	 * @return the position, in bytes, in the document, or -1 if not available
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		for (String name: path) {
+			s.append('/').append(name);
+		}
+		if (path.length == 0) {
+			s.append('/');
+		}
+		if (lineNumber >= 0) {
+			s.append(", line ").append(lineNumber);
+		}
+		if (columnNumber >= 0) {
+			s.append(", column ").append(columnNumber);
+		}
+		if (offset >= 0) {
+			s.append(", byte ").append(offset);
+		}
+		return s.toString();
+	}
+}
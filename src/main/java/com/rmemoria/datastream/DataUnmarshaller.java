@@ -3,8 +3,11 @@
  */
 package com.rmemoria.datastream;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.InputStream;
 import java.util.Collection;
+import java.util.Iterator;
 
 /**
  * Interface provided by the {@link StreamContext} to deserialize objects from a choosen
@@ -37,7 +40,126 @@ public interface DataUnmarshaller {
 	 * root object deserialized
 	 */
 	void unmarshall(InputStream stream, ObjectConsumer consumer);
+
+	/**
+	 * Deserialize the objects from the given file. The file is mapped in memory, and its bytes
+	 * are copied to the parser from the pages of the file in the operating system cache. The
+	 * result is the same of {@link #unmarshall(InputStream)}
+	 * @param file the file containing the objects
+	 * @return the object, or a {@link Collection} of objects if a collection is declared in the schema
+	 */
+	Object unmarshall(File file);
+
+	/**
+	 * Deserialize the objects from the given file, sending each object of the root
+	 * object graph to the consumer. The file is mapped in memory, and its bytes are copied to
+	 * the parser from the pages of the file in the operating system cache
+	 * @param file the file containing the objects
+	 * @param consumer the instance of the {@link ObjectConsumer} that will be called for each
+	 * root object deserialized
+	 */
+	void unmarshall(File file, ObjectConsumer consumer);
+
+	/**
+	 * Deserialize the objects from the given file, starting from an object in the index of
+	 * the file, generated by the {@link DataMarshaller}. The file is not read from its
+	 * beginning, but directly from the position of the object. The objects are read until the end
+	 * of the document or until the limit declared in {@link #setLimit(int)} is reached, so
+	 * a range of objects may be read
+	 * @param file the file containing the objects
+	 * @param index the index of the objects in the file
+	 * @param first the index of the first object to read
+	 * @param consumer the instance of the {@link ObjectConsumer} that will be called for each
+	 * root object deserialized
+	 */
+	void unmarshall(File file, DataStreamIndex index, int first, ObjectConsumer consumer);
+
+	/**
+	 * Deserialize a single object from the given file, by its key in the index of the file,
+	 * generated by the {@link DataMarshaller}. Just the element of the object is read
+	 * @param file the file containing the objects
+	 * @param index the index of the objects in the file
+	 * @param key the key of the object in the index
+	 * @return the object, or null if there is no object with the given key
+	 */
+	Object unmarshall(File file, DataStreamIndex index, String key);
+
+	/**
+	 * Resume the reading of the objects from the given file, starting just after the object
+	 * of the checkpoint. The file is not read from its beginning, but directly from the position
+	 * of the checkpoint. The offset is not applied, since the objects before the checkpoint were
+	 * already skipped, but the filter is applied to the objects after the checkpoint, and the
+	 * limit is the maximum number of objects read after the checkpoint
+	 * @param file the file containing the objects
+	 * @param checkpoint the checkpoint returned by {@link #getCheckpoint()} when the file was read before
+	 * @param consumer the instance of the {@link ObjectConsumer} that will be called for each
+	 * root object deserialized
+	 */
+	void unmarshall(File file, DataStreamCheckpoint checkpoint, ObjectConsumer consumer);
+
+	/**
+	 * Return the checkpoint of the last object read from the collection declared in the root,
+	 * allowing the reading to be resumed from it. Usually called by the {@link ObjectConsumer}
+	 * when the object is received, for example, when the objects read are committed to a database.
+	 * If the consumer raises an exception, the object it failed to receive is not included in the
+	 * checkpoint, which is still available after the reading fails.
+	 * Checkpoints are available just when the document is read by the tokenizer of
+	 * {@link StreamFileTypeXMLFast}, since the other parsers don't report the position in bytes
+	 * of the objects
+	 * @return instance of {@link DataStreamCheckpoint}, or null if no object was read or the
+	 * position of the object is not available
+	 */
+	DataStreamCheckpoint getCheckpoint();
+
+	/**
+	 * Return an iterator of the objects of the root object graph in the given input stream.
+	 * The document is read lazily, just until the next object is available, so just one
+	 * object is kept in memory at a time. When all objects are read, the input stream is closed.
+	 * The iterator returned also implements {@link Closeable}, allowing the client to stop
+	 * reading before the end of the document and close the stream.
+	 * @param stream instance of the {@link InputStream} containing all objects to be deserialized
+	 * @return instance of {@link Iterator}
+	 */
+	Iterator<Object> iterator(InputStream stream);
 	
+	/**
+	 * Define if the unmarshaller is tolerant to elements and attributes not declared in the schema.
+	 * If true, these elements and the properties declared to be ignored are skipped with all its
+	 * content, otherwise an exception is raised when an element not declared is found. Default is false
+	 * @param tolerant boolean value
+	 */
+	void setTolerant(boolean tolerant);
+
+	/**
+	 * Define the number of objects of the root object graph to be skipped in the beginning
+	 * of the document. Skipped objects are not created. Default is 0
+	 * @param offset the number of objects to skip
+	 */
+	void setOffset(int offset);
+
+	/**
+	 * Define the maximum number of objects of the root object graph to be read. Once the limit
+	 * is reached, the rest of the document is not read. Default is 0, i.e, no limit
+	 * @param limit the maximum number of objects
+	 */
+	void setLimit(int limit);
+
+	/**
+	 * Define a filter of the objects of the root object graph. The filter is checked with the
+	 * attributes of the element of each object, before its content is read, and rejected
+	 * objects are skipped with no object being created. The offset and the limit are applied
+	 * just to the objects accepted by the filter. Default is null, i.e, all objects are read
+	 * @param filter instance of {@link ObjectFilter}, or null to read all objects
+	 */
+	void setFilter(ObjectFilter filter);
+
+	/**
+	 * Stop reading the document being unmarshalled. Usually called by the {@link ObjectConsumer}
+	 * when it doesn't need more objects. The objects already read are kept, and the rest of
+	 * the document is not read
+	 */
+	void stop();
+
 	/**
 	 * Add an implementation of the {@link CustomPropertiesWriter} to the object
 	 * in order to receive object custom properties that are read along the document
@@ -0,0 +1,31 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream;
+
+import java.util.Map;
+
+/**
+ * Interface that must be implemented when the client wants to read just some of the
+ * objects of the root object graph. The filter is called when the element of an object
+ * starts, before its content is read, and receives the attributes declared in the element.
+ * Rejected objects are skipped with all its content, and no object is created for them.
+ * <p>
+ * When used with a parallel unmarshaller, the filter is called by several threads at the
+ * same time, so its implementation must be thread safe
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public interface ObjectFilter {
+
+	/**
+	 * Check if an object must be read from the document
+	 * @param objectClass the class of the object graph
+	 * @param attributes the attributes declared in the element of the object, where the key
+	 * is the attribute name and the value is its text in the document. The map is read only,
+	 * and it's valid just during the call
+	 * @return true if the object must be read, or false if it must be skipped
+	 */
+	boolean accept(Class objectClass, Map<String, String> attributes);
+}
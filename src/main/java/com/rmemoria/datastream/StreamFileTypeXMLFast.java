@@ -0,0 +1,16 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream;
+
+/**
+ * Indicates that the file in use is an XML file, read by a tokenizer working directly on the bytes
+ * of the document. It supports the documents written by the data stream marshaller, i.e, UTF-8 (or ASCII)
+ * documents with no DTD. Documents out of this subset are read by the StAX parser of the JDK.
+ * The unmarshaller created for this type implements {@link DataPullUnmarshaller}
+ * @author Ricardo Memoria
+ *
+ */
+public interface StreamFileTypeXMLFast extends StreamFileTypeXMLPull {
+
+}
@@ -0,0 +1,15 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream;
+
+/**
+ * Indicates that the file in use is an XML file, read by several threads in parallel. The
+ * unmarshaller created for this type implements {@link DataParallelUnmarshaller}. The document
+ * written is the same of {@link StreamFileTypeXML}
+ * @author Ricardo Memoria
+ *
+ */
+public interface StreamFileTypeXMLParallel extends StreamFileTypeXML {
+
+}
@@ -0,0 +1,15 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream;
+
+/**
+ * Indicates that the file in use is an XML file, read by a pull parser (StAX). The unmarshaller
+ * created for this type implements {@link DataPullUnmarshaller}, allowing the objects to be
+ * read one at a time, on demand. The document written is the same of {@link StreamFileTypeXML}
+ * @author Ricardo Memoria
+ *
+ */
+public interface StreamFileTypeXMLPull extends StreamFileTypeXML {
+
+}
@@ -0,0 +1,94 @@
+/**
+ *
+ */
+package com.rmemoria.datastream.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.xml.sax.Attributes;
+
+/**
+ * Read only view of the attributes of an element as a {@link java.util.Map}. The values are
+ * read directly from the {@link Attributes}, so no map is created for each element, and
+ * the same instance is reused for every element read
+ *
+ * @author Ricardo Memoria
+ *
+ */
+public class AttributesMap extends AbstractMap<String, String> {
+
+	private Attributes attributes;
+
+	/**
+	 * Set the attributes of the element in the view
+	 * @param attributes instance of {@link Attributes}, or null if the element has no attribute
+	 */
+	public void setAttributes(Attributes attributes) {
+		this.attributes = attributes;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public String get(Object key) {
+		return (attributes != null) && (key instanceof String) ? attributes.getValue((String)key) : null;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return attributes != null ? attributes.getLength() : 0;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Set<Entry<String, String>> entrySet() {
+		return new AbstractSet<Entry<String, String>>() {
+			@Override
+			public Iterator<Entry<String, String>> iterator() {
+				return new Iterator<Entry<String, String>>() {
+					private int index;
+
+					@Override
+					public boolean hasNext() {
+						return index < size();
+					}
+
+					@Override
+					public Entry<String, String> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						Entry<String, String> e = new SimpleImmutableEntry<String, String>(
+								attributes.getQName(index), attributes.getValue(index));
+						index++;
+						return e;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return AttributesMap.this.size();
+			}
+		};
+	}
+}
@@ -4,9 +4,16 @@
 package com.rmemoria.datastream.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.rmemoria.datastream.DataStreamException;
+import com.rmemoria.datastream.jaxb.AccessType;
 import com.rmemoria.datastream.jaxb.ObjectGraph;
+import com.rmemoria.datastream.jaxb.Property;
+import com.rmemoria.datastream.jaxb.PropertyUse;
 
 /**
  * @author Ricardo Memoria
@@ -21,6 +28,14 @@ public class ClassMetaData {
 	private PropertyMetaData parentProperty;
 	private PropertyMetaData linkParentObject;
 	private StreamContextImpl context;
+	private boolean compiled;
+	private PropertyMetaData[] composedProperties;
+	private ObjectInstantiator instantiator;
+	// index of end point properties by its name in the XML document
+	private Map<String, PropertyMetaData> attributeIndex;
+	private Map<String, PropertyMetaData> elementIndex;
+	private List<PropertyMetaData> requiredProperties;
+	private WritePlan writePlan;
 
 	public ClassMetaData(StreamContextImpl context, ObjectGraph graph, Class graphClass) {
 		super();
@@ -51,6 +66,172 @@ public class ClassMetaData {
 		}
 		return endpointProperties;
 	}
+
+	/**
+	 * Resolve, once the whole schema is scanned, all information of the graph that
+	 * doesn't depend on the objects being serialized/deserialized, like the end point
+	 * properties, element names, paths and the graphs the properties point to. Called
+	 * by the context when it's created, so the marshaller and unmarshaller don't have to
+	 * compute them again for every object
+	 */
+	protected void compile() {
+		if (compiled) {
+			return;
+		}
+		compiled = true;
+
+		List<PropertyMetaData> lst = new ArrayList<PropertyMetaData>();
+		for (PropertyMetaData pmd: properties) {
+			pmd.findEndpointProperties(lst);
+		}
+		endpointProperties = Collections.unmodifiableList(lst);
+
+		for (int i = 0; i < endpointProperties.size(); i++) {
+			PropertyMetaData pmd = endpointProperties.get(i);
+			pmd.setIndex(i);
+			pmd.compile();
+			if (pmd.getTypeMetaData() != null) {
+				pmd.getTypeMetaData().compile();
+			}
+		}
+
+		for (PropertyMetaData pmd: properties) {
+			pmd.updateEndpointRange();
+		}
+
+		// index properties by its attribute and element names
+		attributeIndex = new HashMap<String, PropertyMetaData>();
+		elementIndex = new HashMap<String, PropertyMetaData>();
+		for (PropertyMetaData pmd: endpointProperties) {
+			Map<String, PropertyMetaData> index = pmd.isXmlAttribute() ? attributeIndex : elementIndex;
+			// if more than one property has the same name, the first one is used
+			if (!index.containsKey(pmd.getElementName())) {
+				index.put(pmd.getElementName(), pmd);
+			}
+		}
+
+		// composed properties with values to serialize
+		List<PropertyMetaData> composed = new ArrayList<PropertyMetaData>();
+		for (PropertyMetaData pmd: properties) {
+			if ((pmd.isComposed()) && (pmd.isSerializationRequired())) {
+				composed.add(pmd);
+			}
+		}
+		composedProperties = composed.toArray(new PropertyMetaData[composed.size()]);
+
+		instantiator = createInstantiator();
+
+		// properties declared as required in the schema
+		List<PropertyMetaData> required = new ArrayList<PropertyMetaData>();
+		for (Property prop: graph.getProperty()) {
+			if (prop.getUse() == PropertyUse.REQUIRED) {
+				PropertyMetaData pmd = findPropertyByName(prop.getName());
+				if (pmd != null) {
+					required.add(pmd);
+				}
+			}
+		}
+		requiredProperties = Collections.unmodifiableList(required);
+
+		writePlan = new WritePlan(this);
+	}
+
+	/**
+	 * Return the information about how the objects of this graph are written
+	 * @return instance of {@link WritePlan}
+	 */
+	public WritePlan getWritePlan() {
+		if (writePlan == null) {
+			compile();
+		}
+		return writePlan;
+	}
+
+	/**
+	 * Return the properties declared as required in the schema
+	 * @return list of {@link PropertyMetaData}
+	 */
+	public List<PropertyMetaData> getRequiredProperties() {
+		if (requiredProperties == null) {
+			compile();
+		}
+		return requiredProperties;
+	}
+
+	/**
+	 * Create the object responsible for creating new instances of the graph class, using
+	 * the constructor arguments or the factory method declared in the graph, if available
+	 * @return instance of {@link ObjectInstantiator}
+	 */
+	protected ObjectInstantiator createInstantiator() {
+		String args = graph.getConstructorArgs();
+		String factoryMethod = graph.getFactoryMethod();
+		if ((args == null || args.trim().isEmpty()) && (factoryMethod == null)) {
+			return context.getInstantiator(graphClass);
+		}
+
+		List<PropertyMetaData> lst = new ArrayList<PropertyMetaData>();
+		if (args != null) {
+			for (String name: args.split(",")) {
+				name = name.trim();
+				if (name.isEmpty()) {
+					continue;
+				}
+				PropertyMetaData prop = findPropertyByName(name);
+				if (prop == null) {
+					throw new DataStreamException(this, null, "Constructor argument not found: " + name);
+				}
+				if (prop.isComposed()) {
+					throw new DataStreamException(this, prop, "Nested property cannot be a constructor argument: " + name);
+				}
+				lst.add(prop);
+			}
+		}
+		return new ObjectInstantiator(this, lst.toArray(new PropertyMetaData[lst.size()]), factoryMethod);
+	}
+
+	/**
+	 * Return the object responsible for creating new instances of the graph class
+	 * @return instance of {@link ObjectInstantiator}
+	 */
+	public ObjectInstantiator getInstantiator() {
+		if (instantiator == null) {
+			compile();
+		}
+		return instantiator;
+	}
+
+	/**
+	 * Read the values of all nested end point properties (declared with a path, like
+	 * <code>customer.address.street</code>) of the given object, storing them in the
+	 * array by the index of each end point property. Intermediate objects shared by nested
+	 * properties are read just once
+	 * @param obj the object to read the values from
+	 * @param values the array to receive the values, with at least the size of the end point list
+	 */
+	public void readComposedValues(Object obj, Object[] values) {
+		for (PropertyMetaData pmd: getComposedProperties()) {
+			pmd.readValues(obj, values);
+		}
+	}
+
+	/**
+	 * Return true if the graph contains nested properties declared with a path
+	 * @return boolean value
+	 */
+	public boolean hasComposedProperties() {
+		return getComposedProperties().length > 0;
+	}
+
+	/**
+	 * @return the composed properties with values to be serialized
+	 */
+	private PropertyMetaData[] getComposedProperties() {
+		if (composedProperties == null) {
+			compile();
+		}
+		return composedProperties;
+	}
 	
 	/**
 	 * Search for a property by its element name
@@ -58,11 +239,25 @@ public class ClassMetaData {
 	 * @return instance of {@link PropertyMetaData}, or null if no property is found
 	 */
 	public PropertyMetaData findPropertyByElementName(String name) {
-		for (PropertyMetaData prop: getEndPointProperties()) {
-			if (prop.getElementName().equals(name))
-				return prop;
+		if (elementIndex == null) {
+			compile();
 		}
-		return null;
+		PropertyMetaData prop = elementIndex.get(name);
+		return prop != null ? prop : attributeIndex.get(name);
+	}
+
+	/**
+	 * Search for a property by the name of the XML attribute it's declared in. Properties
+	 * declared as XML elements are also accepted in attributes
+	 * @param name is the attribute name
+	 * @return instance of {@link PropertyMetaData}, or null if no property is found
+	 */
+	public PropertyMetaData findPropertyByAttributeName(String name) {
+		if (attributeIndex == null) {
+			compile();
+		}
+		PropertyMetaData prop = attributeIndex.get(name);
+		return prop != null ? prop : elementIndex.get(name);
 	}
 	
 	
@@ -74,7 +269,7 @@ public class ClassMetaData {
 	public PropertyMetaData findPropertyByName(String name) {
 		// is a nested property ?
 		if (name.indexOf('.') > 0) { 
-			String[] props = name.split("//.");
+			String[] props = name.split("\\.");
 			PropertyMetaData pmd = findPropertyByName(props[0]);
 			if (pmd == null) {
 				return null;
@@ -106,6 +301,15 @@ public class ClassMetaData {
 		return Boolean.TRUE.equals(graph.getIgnorePropsNotDeclared());
 	}
 	
+	/**
+	 * If true, the properties of the graph are read and written directly from its fields,
+	 * instead of using the get and set methods. Default is false
+	 * @return boolean value
+	 */
+	public boolean isFieldAccess() {
+		return graph.getAccessType() == AccessType.FIELD;
+	}
+
 	/**
 	 * @return the graph
 	 */
@@ -5,6 +5,10 @@ package com.rmemoria.datastream.impl;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import com.rmemoria.datastream.DataStreamException;
 import com.rmemoria.datastream.jaxb.ObjectCollection;
@@ -23,6 +27,9 @@ public class ClassPropertyScanner {
 
 //	private StreamContextImpl context;
 //	private ClassMetaData classMetaData;
+
+	// declared methods of the classes already scanned
+	private Map<Class, Method[]> declaredMethods = new HashMap<Class, Method[]>();
 	
 	/**
 	 * Scan the collection defined in the schema and return its {@link CollectionMetaData} class
@@ -91,7 +98,7 @@ public class ClassPropertyScanner {
 		PropertyMetaData aux = classMetaData.findPropertyByName(parentprop);
 		if (aux == null) {
 			aux = new PropertyMetaData(classMetaData);
-			aux.setFieldAccess( createFieldAccess(classMetaData.getGraphClass(), parentprop));
+			aux.setFieldAccess( createFieldAccess(classMetaData, classMetaData.getGraphClass(), parentprop));
 			classMetaData.addProperty(aux);
 		}
 
@@ -116,7 +123,7 @@ public class ClassPropertyScanner {
 		PropertyMetaData prop = cmd.findPropertyByName(props[0]);
 		if (prop == null) {
 			prop = new PropertyMetaData(cmd);
-            FieldAccess fa = createFieldAccess(cmd.getGraphClass(), props[0]);
+            FieldAccess fa = createFieldAccess(cmd, cmd.getGraphClass(), props[0]);
             if (fa == null) {
                 throw new DataStreamException("Property " + property.getName() + " not found");
             }
@@ -131,7 +138,7 @@ public class ClassPropertyScanner {
 				PropertyMetaData child = parent.findPropertyByName(props[i]);
 				if (child == null) {
 					child = new PropertyMetaData(cmd);
-					child.setFieldAccess( createFieldAccess(parent.getPropertyType(), props[i]));
+					child.setFieldAccess( createFieldAccess(cmd, parent.getPropertyType(), props[i]));
 					parent.addProperty(child);
 				}
 				parent = child;
@@ -180,7 +187,13 @@ public class ClassPropertyScanner {
 		for (Field field: fields) {
 			PropertyMetaData p = classMetaData.findPropertyByName(field.getName());
 			if (p == null) {
-				FieldAccess fa = createFieldAccess(clazz, field.getName());
+				FieldAccess fa;
+				if (classMetaData.isFieldAccess()) {
+					fa = isSerializableField(field) ? new DirectFieldAccess(field) : null;
+				}
+				else {
+					fa = createFieldAccess(clazz, field.getName());
+				}
 				if (fa != null) {
 					p = new PropertyMetaData(classMetaData);
 					classMetaData.addProperty(p);
@@ -195,6 +208,38 @@ public class ClassPropertyScanner {
 	}
 
 
+	/**
+	 * Create the access to the field according to the access type declared in the graph.
+	 * If the graph uses field access, the field is accessed directly, otherwise
+	 * by its read and write methods
+	 * @param cmd the graph the property belongs to
+	 * @param clazz the class that declares the field
+	 * @param fieldname the name of the field inside the class
+	 * @return instance of {@link FieldAccess}, or null if the field is not found
+	 */
+	protected FieldAccess createFieldAccess(ClassMetaData cmd, Class clazz, String fieldname) {
+		if (!cmd.isFieldAccess()) {
+			return createFieldAccess(clazz, fieldname);
+		}
+
+		Field field = getDeclaredField(clazz, fieldname);
+		if ((field == null) || (!isSerializableField(field))) {
+			return null;
+		}
+		return new DirectFieldAccess(field);
+	}
+
+	/**
+	 * Check if the field can be accessed directly to serialize/deserialize its value.
+	 * Static, transient and fields generated by the compiler are not
+	 * @param field the field to check
+	 * @return true if field can be serialized/deserialized
+	 */
+	protected boolean isSerializableField(Field field) {
+		int mod = field.getModifiers();
+		return (!Modifier.isStatic(mod)) && (!Modifier.isTransient(mod)) && (!field.isSynthetic());
+	}
+
 	/**
 	 * Get the read and write methods of the field. The field must be declared in the given class,
      * but read and write are searched across parent classes, if not found immediatelly in the class
@@ -280,7 +325,7 @@ public class ClassPropertyScanner {
 	 * @return
 	 */
 	protected Field getDeclaredField(Class clazz, String fieldname) {
-		while (clazz != Object.class) {
+		while ((clazz != null) && (clazz != Object.class)) {
 			// search for field in the class clazz
 			Field[] fields = clazz.getDeclaredFields();
 			for (Field fld: fields)
@@ -302,16 +347,37 @@ public class ClassPropertyScanner {
 	 * @return the instance of the {@link Method} found, or null if no method was found
 	 */
 	protected Method getDeclaredMethod(Class clazz, String metname, Class[] params) {
-		while (clazz != Object.class) {
-			try {
-				return clazz.getDeclaredMethod(metname, params);
-			} catch (NoSuchMethodException e) {
-				clazz = clazz.getSuperclass();
-				if (clazz != null) {
-					return getDeclaredMethod(clazz, metname, params);
+		while ((clazz != null) && (clazz != Object.class)) {
+			Method bridge = null;
+			for (Method met: getDeclaredMethods(clazz)) {
+				if ((met.getName().equals(metname)) && (Arrays.equals(met.getParameterTypes(), params))) {
+					// bridge methods are generated by the compiler for covariant return types
+					if (!met.isBridge()) {
+						return met;
+					}
+					bridge = met;
 				}
 			}
+			if (bridge != null) {
+				return bridge;
+			}
+			clazz = clazz.getSuperclass();
 		}
 		return null;
 	}
+
+	/**
+	 * Return the methods declared in the class. The methods are cached, so the
+	 * class is queried just once during the scan
+	 * @param clazz the class to get the methods from
+	 * @return array of {@link Method}
+	 */
+	private Method[] getDeclaredMethods(Class clazz) {
+		Method[] mets = declaredMethods.get(clazz);
+		if (mets == null) {
+			mets = clazz.getDeclaredMethods();
+			declaredMethods.put(clazz, mets);
+		}
+		return mets;
+	}
 }
@@ -0,0 +1,68 @@
+/**
+ *
+ */
+package com.rmemoria.datastream.impl;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that counts the number of bytes written to the stream it wraps
+ *
+ * @author Ricardo Memoria
+ *
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+	private long count;
+
+	/**
+	 * Create the stream that writes to the given output stream
+	 * @param out the output stream to write to
+	 */
+	public CountingOutputStream(OutputStream out) {
+		super(out);
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void write(int b) throws IOException {
+		out.write(b);
+		count++;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		count += len;
+	}
+
+	/**
+	 * The bytes are not buffered by this stream, so there is nothing to flush. The flush is not
+	 * forwarded to the output stream it wraps, since it's called just to count the bytes written,
+	 * and the output stream must be flushed by {@link #flushOutput()}
+	 */
+	@Override
+	public void flush() throws IOException {
+		// nothing to flush
+	}
+
+	/**
+	 * Flush the output stream wrapped by this stream
+	 * @throws IOException
+	 */
+	public void flushOutput() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * @return the number of bytes written
+	 */
+	public long getCount() {
+		return count;
+	}
+}
@@ -15,7 +15,72 @@ import com.rmemoria.datastream.DataConverter;
  */
 public class DefaultConverters implements DataConverter {
 
-	private static final SimpleDateFormat dtformat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
+	// SimpleDateFormat is not thread safe, so each thread has its own instance
+	private static final ThreadLocal<SimpleDateFormat> dtformat = new ThreadLocal<SimpleDateFormat>() {
+		@Override
+		protected SimpleDateFormat initialValue() {
+			return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
+		}
+	};
+
+	/**
+	 * Types handled by the default converter. The value type of a property is resolved
+	 * once from its declared class, so converting a value doesn't have to test its class
+	 * against every supported type
+	 */
+	public enum ValueType {
+		STRING(String.class),
+		INT(Integer.class),
+		LONG(Long.class),
+		FLOAT(Float.class),
+		DOUBLE(Double.class),
+		BOOLEAN(Boolean.class),
+		CHAR(Character.class),
+		DATE(null),
+		ENUM(null),
+		UNSUPPORTED(null);
+
+		private Class wrapperType;
+
+		private ValueType(Class wrapperType) {
+			this.wrapperType = wrapperType;
+		}
+
+		/**
+		 * Return the value type of the given class
+		 * @param classType the class of the value
+		 * @return instance of {@link ValueType}
+		 */
+		public static ValueType of(Class classType) {
+			if (classType == String.class)
+				return STRING;
+			if ((classType == int.class) || (classType == Integer.class))
+				return INT;
+			if ((classType == long.class) || (classType == Long.class))
+				return LONG;
+			if ((classType == float.class) || (classType == Float.class))
+				return FLOAT;
+			if ((classType == double.class) || (classType == Double.class))
+				return DOUBLE;
+			if ((classType == boolean.class) || (classType == Boolean.class))
+				return BOOLEAN;
+			if ((classType == char.class) || (classType == Character.class))
+				return CHAR;
+			if (Date.class.isAssignableFrom(classType))
+				return DATE;
+			if (Enum.class.isAssignableFrom(classType))
+				return ENUM;
+			return UNSUPPORTED;
+		}
+
+		/**
+		 * Return the class of the values of this type when boxed
+		 * @return the wrapper class, or null if it's not a primitive type
+		 */
+		public Class getWrapperType() {
+			return wrapperType;
+		}
+	}
 
 	/** {@inheritDoc}
 	 */
@@ -24,43 +89,87 @@ public class DefaultConverters implements DataConverter {
 		if (obj == null)
 			return "";
 
-		Class classType = obj.getClass();
+		return convertToString(obj, ValueType.of(obj.getClass()));
+	}
 
-		// check if it's a string
-		if (classType == String.class)
+	/**
+	 * Convert an object to string when its value type is already known
+	 * @param obj the object to convert
+	 * @param type the value type of the object
+	 * @return String value
+	 */
+	public String convertToString(Object obj, ValueType type) {
+		if (obj == null)
+			return "";
+
+		switch (type) {
+		case STRING:
 			return (String)obj;
-		
-		// check if it's an integer type
-		if ((classType == int.class) || (classType == Integer.class))
+		case INT:
 			return Integer.toString((Integer)obj);
-
-		// check if it's a long type
-		if ((classType == long.class) || (classType == Long.class))
+		case LONG:
 			return Long.toString((Long)obj);
-
-		// check if it's a character type
-		if ((classType == char.class) || (classType == Character.class))
+		case CHAR:
 			return ((Character)obj).toString();
-
-		// check if it's a boolean type
-		if ((classType == boolean.class) || (classType == Boolean.class))
-			return (Boolean)obj ? "1": "0";
-		
-		if ((classType == Float.class) || (classType == float.class))
+		case BOOLEAN:
+			return convertToString(((Boolean)obj).booleanValue());
+		case FLOAT:
 			return Float.toString((Float)obj);
-		
-		if ((classType == Double.class) || (classType == double.class))
+		case DOUBLE:
 			return Double.toString((Double)obj);
+		case DATE:
+			return dtformat.get().format((Date)obj);
+		case ENUM:
+			return obj.toString();
+		default:
+			throw new IllegalArgumentException("Class " + obj.getClass().toString() + " not supported for serialization");
+		}
+	}
 
-		// check if it's a date-time type
-		if (Date.class.isAssignableFrom(classType))
-			return dtformat.format((Date)obj);
+	/**
+	 * Convert a boolean value to its string representation
+	 * @param value the boolean value
+	 * @return String value
+	 */
+	public String convertToString(boolean value) {
+		return value ? "1": "0";
+	}
 
-		// is an enumeration ?
-		if (Enum.class.isAssignableFrom(classType))
-			return obj.toString();
-		
-		throw new IllegalArgumentException("Class " + classType.toString() + " not supported for serialization");
+	/**
+	 * Write the digits of an integer number in the given buffer, starting at
+	 * the first position, without creating an intermediate string
+	 * @param value the number to convert
+	 * @param buf the buffer that will receive the digits. Must hold at least 20 chars
+	 * @return the number of chars written in the buffer
+	 */
+	public int convertToChars(long value, char[] buf) {
+		if (value == Long.MIN_VALUE) {
+			String s = Long.toString(value);
+			s.getChars(0, s.length(), buf, 0);
+			return s.length();
+		}
+
+		int len = 0;
+		if (value < 0) {
+			buf[len++] = '-';
+			value = -value;
+		}
+
+		// count the digits of the number
+		long aux = value;
+		int digits = 1;
+		while (aux >= 10) {
+			aux /= 10;
+			digits++;
+		}
+
+		// write the digits from the last to the first one
+		int pos = len + digits;
+		while (pos > len) {
+			buf[--pos] = (char)('0' + (value % 10));
+			value /= 10;
+		}
+		return len + digits;
 	}
 
 
@@ -68,64 +177,138 @@ public class DefaultConverters implements DataConverter {
 	 */
 	@Override
 	public Object convertFromString(String s, Class classType) {
+		return convertFromString(s, classType, ValueType.of(classType));
+	}
+
+	/**
+	 * Convert a string to an object when the value type of the class is already known
+	 * @param s the string to convert
+	 * @param classType the class to convert the string to
+	 * @param type the value type of the class
+	 * @return the converted object
+	 */
+	public Object convertFromString(String s, Class classType, ValueType type) {
 		if (s == null || s.isEmpty()) {
             return null;
         }
 
-		// check if it's a string
-		if (classType == String.class)
+		switch (type) {
+		case STRING:
 			return s;
-		
-		// check if it's an integer type
-		if ((classType == int.class) || (classType == Integer.class))
+		case INT:
 			return Integer.parseInt(s);
-
-		// check if it's a long type
-		if ((classType == long.class) || (classType == Long.class))
+		case LONG:
 			return Long.parseLong(s);
-
-		// check if it's a character type
-		if ((classType == char.class) || (classType == Character.class)) {
-			if (s.length() > 0)
-				return s.charAt(0);
-			raiseConvertionError(s, classType);
-		}
-
-		// check if it's a boolean type
-		if ((classType == boolean.class) || (classType == Boolean.class)) {
+		case CHAR:
+			return s.charAt(0);
+		case BOOLEAN:
 			if ((s.equals("1")) || (s.equalsIgnoreCase("true")))
-				return true;
+				return Boolean.TRUE;
 			if ((s.equals("0")) || (s.equalsIgnoreCase("false")))
-				return false;
-			raiseConvertionError(s, classType);
-		}
-
-		// check if it's a date-time type
-		if (Date.class.isAssignableFrom(classType))
-		try {
-			return dtformat.parseObject(s);
-		} catch (ParseException e) {
-			raiseConvertionError(s, Date.class);
-		}
-		
-		// check if it's a float
-		if ((classType == float.class) || (classType == Float.class)) {
+				return Boolean.FALSE;
+			break;
+		case DATE:
+			try {
+				return dtformat.get().parseObject(s);
+			} catch (ParseException e) {
+				raiseConvertionError(s, Date.class);
+			}
+			break;
+		case FLOAT:
 			return Float.parseFloat(s);
-		}
-		
-		// check if it's a double value
-		if ((classType == double.class) || (classType == Double.class)) {
+		case DOUBLE:
 			return Double.parseDouble(s);
-		}
-
-		// it's an enumeration ?
-		if (Enum.class.isAssignableFrom(classType))
+		case ENUM:
 			return stringToEnum(s, classType);
+		default:
+			break;
+		}
 
 		raiseConvertionError(s, classType);
 		return null;
 	}
 	
+	/**
+	 * Convert a range of chars to an object when the value type of the class is already known.
+	 * Integer, long, boolean and char values are parsed directly from the chars, and a string
+	 * is just created for the other types
+	 * @param buf the buffer containing the chars
+	 * @param start the position of the first char in the buffer
+	 * @param length the number of chars
+	 * @param classType the class to convert the chars to
+	 * @param type the value type of the class
+	 * @return the converted object
+	 */
+	public Object convertFromChars(char[] buf, int start, int length, Class classType, ValueType type) {
+		if (length == 0) {
+			return null;
+		}
+
+		switch (type) {
+		case INT:
+			return Integer.valueOf((int)parseLong(buf, start, length, Integer.MIN_VALUE, Integer.MAX_VALUE));
+		case LONG:
+			return Long.valueOf(parseLong(buf, start, length, Long.MIN_VALUE, Long.MAX_VALUE));
+		case CHAR:
+			return Character.valueOf(buf[start]);
+		case BOOLEAN:
+			if (length == 1) {
+				if (buf[start] == '1')
+					return Boolean.TRUE;
+				if (buf[start] == '0')
+					return Boolean.FALSE;
+			}
+			break;
+		default:
+			break;
+		}
+		return convertFromString(new String(buf, start, length), classType, type);
+	}
+
+	/**
+	 * Parse a decimal integer number from a range of chars, with the same rules of {@link Long#parseLong(String)}
+	 * @param buf the buffer containing the chars
+	 * @param start the position of the first char in the buffer
+	 * @param length the number of chars
+	 * @param min the minimum value accepted
+	 * @param max the maximum value accepted
+	 * @return the number
+	 */
+	protected long parseLong(char[] buf, int start, int length, long min, long max) {
+		int i = start;
+		int end = start + length;
+		boolean negative = false;
+		char first = buf[i];
+		if ((first == '-') || (first == '+')) {
+			negative = first == '-';
+			i++;
+			if (i == end) {
+				throw numberFormatError(buf, start, length);
+			}
+		}
+
+		// the number is accumulated as negative, since its range is greater than the positive one
+		long limit = negative ? min : -max;
+		long multmin = limit / 10;
+		long result = 0;
+		while (i < end) {
+			int digit = Character.digit(buf[i++], 10);
+			if ((digit < 0) || (result < multmin)) {
+				throw numberFormatError(buf, start, length);
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				throw numberFormatError(buf, start, length);
+			}
+			result -= digit;
+		}
+		return negative ? result : -result;
+	}
+
+	private NumberFormatException numberFormatError(char[] buf, int start, int length) {
+		return new NumberFormatException("For input string: \"" + new String(buf, start, length) + "\"");
+	}
+
 	/**
 	 * Convert a string to an enumeration type
 	 * @param s
@@ -0,0 +1,116 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.impl;
+
+import java.lang.reflect.Field;
+
+/**
+ * Give access to the value of a property reading and writing directly its field, without
+ * using get and set methods. Used by object graphs declared with field access type, so 
+ * classes with no get/set methods (or with final fields) can be serialized/deserialized
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class DirectFieldAccess extends FieldAccess {
+
+	private Field field;
+
+	public DirectFieldAccess(Field field) {
+		super(field.getName(), field.getType());
+		makeAccessible(field);
+		this.field = field;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Object getValue(Object obj) {
+		try {
+			return field.get(obj);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public long getLong(Object obj) {
+		try {
+			return field.getLong(obj);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public float getFloat(Object obj) {
+		try {
+			return field.getFloat(obj);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public double getDouble(Object obj) {
+		try {
+			return field.getDouble(obj);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public boolean getBoolean(Object obj) {
+		try {
+			return field.getBoolean(obj);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public char getChar(Object obj) {
+		try {
+			return field.getChar(obj);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	protected void writeValue(Object obj, Object value) {
+		try {
+			field.set(obj, value);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public boolean isWritable() {
+		return true;
+	}
+
+	/**
+	 * @return the field
+	 */
+	public Field getField() {
+		return field;
+	}
+}
@@ -5,10 +5,16 @@ package com.rmemoria.datastream.impl;
 
 import com.rmemoria.datastream.DataStreamException;
 
+import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 /**
+ * Give access to the value of a property of a class using its get and set methods.
+ * The methods are bound once when the schema is scanned (access checks are suppressed
+ * and the field type and its default null value are resolved), so reading and writing
+ * a value is just the method invocation itself
+ *
  * @author Ricardo Memoria
  *
  */
@@ -17,12 +23,27 @@ public class FieldAccess {
 	private String name;
 	private Method setMethod;
 	private Method getMethod;
+	private Class<?> fieldType;
+	private Object nullValue;
 
 	public FieldAccess(String fieldName, Method getMethod, Method setMethod) {
 		super();
 		this.name = fieldName;
-		this.setMethod = setMethod;
-		this.getMethod = getMethod;
+		setGetMethod(getMethod);
+		setSetMethod(setMethod);
+	}
+
+	/**
+	 * Constructor used by implementations that don't access the value by
+	 * get and set methods
+	 * @param fieldName the name of the field
+	 * @param fieldType the class type of the field
+	 */
+	protected FieldAccess(String fieldName, Class<?> fieldType) {
+		super();
+		this.name = fieldName;
+		this.fieldType = fieldType;
+		this.nullValue = defaultNullValue(fieldType);
 	}
 
 	/**
@@ -33,11 +54,58 @@ public class FieldAccess {
 	public Object getValue(Object obj) {
 		try {
 			return getMethod.invoke(obj);
-		} catch (Exception e) {
+		} catch (InvocationTargetException e) {
+			throw unwrapException(e);
+		} catch (IllegalAccessException e) {
 			throw new RuntimeException(e);
 		}
 	}
-	
+
+	/**
+	 * Get the value of a field declared as an integer primitive type (int, long, short or byte)
+	 * @param obj the object to get the value from
+	 * @return long value
+	 */
+	public long getLong(Object obj) {
+		return ((Number)getValue(obj)).longValue();
+	}
+
+	/**
+	 * Get the value of a field declared as a float primitive type
+	 * @param obj the object to get the value from
+	 * @return float value
+	 */
+	public float getFloat(Object obj) {
+		return ((Number)getValue(obj)).floatValue();
+	}
+
+	/**
+	 * Get the value of a field declared as a double primitive type
+	 * @param obj the object to get the value from
+	 * @return double value
+	 */
+	public double getDouble(Object obj) {
+		return ((Number)getValue(obj)).doubleValue();
+	}
+
+	/**
+	 * Get the value of a field declared as a boolean primitive type
+	 * @param obj the object to get the value from
+	 * @return boolean value
+	 */
+	public boolean getBoolean(Object obj) {
+		return ((Boolean)getValue(obj)).booleanValue();
+	}
+
+	/**
+	 * Get the value of a field declared as a char primitive type
+	 * @param obj the object to get the value from
+	 * @return char value
+	 */
+	public char getChar(Object obj) {
+		return ((Character)getValue(obj)).charValue();
+	}
+
 	/**
 	 * Set the value of the field from the given object using the set method
 	 * @param obj
@@ -47,41 +115,104 @@ public class FieldAccess {
         if (obj == null) {
             throw new DataStreamException("Invalid null object to set value of " + getName() + ": " + getFieldType());
         }
-        if (setMethod == null) {
+        if (!isWritable()) {
             throw new RuntimeException("No set method found for property " + getName() + ": " + getFieldType());
         }
 
+        if (value == Constants.NULL_VALUE) {
+            value = null;
+        }
+
+        writeValue(obj, value != null? value: nullValue);
+	}
+
+	/**
+	 * Write the value in the field of the given object. The value is never null
+	 * for primitive types
+	 * @param obj the object to write the value to
+	 * @param value the value to be written
+	 */
+	protected void writeValue(Object obj, Object value) {
 		try {
-            if (value == Constants.NULL_VALUE || value == null) {
-                setNullValue(obj);
-            }
-            else {
-                setMethod.invoke(obj, value);
-            }
-		} catch (Exception e) {
+            setMethod.invoke(obj, value);
+		} catch (InvocationTargetException e) {
+			throw unwrapException(e);
+		} catch (IllegalAccessException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-    private void setNullValue(Object obj) throws InvocationTargetException, IllegalAccessException {
-        Class ftype = getFieldType();
-        Object arg = null;
+	/**
+	 * Return the exception thrown by the get or set method, so the caller receives the
+	 * original exception instead of the reflection wrapper
+	 * @param e instance of {@link InvocationTargetException}
+	 * @return the exception to be thrown
+	 */
+	protected RuntimeException unwrapException(InvocationTargetException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException)cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error)cause;
+		}
+		return new RuntimeException(cause);
+	}
 
-        if (ftype.isPrimitive()) {
-            if (Number.class.isAssignableFrom(ftype)) {
-                arg = 0;
-            }
-            else {
-                if (Boolean.class.isAssignableFrom(ftype)) {
-                    arg = false;
-                }
-            }
-        }
+	/**
+	 * Return the value to be used when setting a null value to a property of the given type.
+	 * Primitive types cannot receive null, so their default value is used instead
+	 * @param type the field type
+	 * @return the default value, or null if it's not a primitive type
+	 */
+	protected static Object defaultNullValue(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return null;
+		}
+		if (type == boolean.class) {
+			return Boolean.FALSE;
+		}
+		if (type == int.class) {
+			return Integer.valueOf(0);
+		}
+		if (type == long.class) {
+			return Long.valueOf(0);
+		}
+		if (type == float.class) {
+			return Float.valueOf(0);
+		}
+		if (type == double.class) {
+			return Double.valueOf(0);
+		}
+		if (type == char.class) {
+			return Character.valueOf('\0');
+		}
+		if (type == short.class) {
+			return Short.valueOf((short)0);
+		}
+		if (type == byte.class) {
+			return Byte.valueOf((byte)0);
+		}
+		return null;
+	}
+
+	/**
+	 * Suppress the Java language access checking of the method or field, so it's not evaluated
+	 * on every call. If not allowed by the security manager, the checking remains
+	 * @param method the method or field to change
+	 */
+	protected static void makeAccessible(AccessibleObject method) {
+		if (method == null) {
+			return;
+		}
+		try {
+			method.setAccessible(true);
+		} catch (SecurityException e) {
+			// keep the default access checking
+		}
+	}
 
-        setMethod.invoke(obj, arg);
-    }
 
-	
 	/**
 	 * Return true if the field can be changed
 	 * @return boolean value
@@ -89,15 +220,15 @@ public class FieldAccess {
 	public boolean isWritable() {
 		return setMethod != null;
 	}
-	
+
 	/**
 	 * Return the class type of the field
 	 * @return Class instance
 	 */
 	public Class<?> getFieldType() {
-		return getMethod.getReturnType();
+		return fieldType;
 	}
-	
+
 	/**
 	 * @return the field
 	 */
@@ -115,6 +246,7 @@ public class FieldAccess {
 	 * @param setMethod the setMethod to set
 	 */
 	public void setSetMethod(Method setMethod) {
+		makeAccessible(setMethod);
 		this.setMethod = setMethod;
 	}
 	/**
@@ -127,6 +259,9 @@ public class FieldAccess {
 	 * @param getMethod the getMethod to set
 	 */
 	public void setGetMethod(Method getMethod) {
+		makeAccessible(getMethod);
 		this.getMethod = getMethod;
+		this.fieldType = getMethod.getReturnType();
+		this.nullValue = defaultNullValue(fieldType);
 	}
 }
@@ -0,0 +1,186 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input stream that reads a file mapped in memory. The file is mapped in windows of
+ * a fixed size, so files of any size can be read, and the bytes are copied directly from
+ * the pages of the file in the operating system cache, with no system call for each read.
+ * Each window is released when the next one is mapped and when the stream is closed, so
+ * the file is not kept mapped (and locked, in some operating systems) until the window
+ * is garbage collected
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class MappedFileInputStream extends InputStream {
+
+	private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private long size;
+	// position in the file of the first byte of the window
+	private long windowStart;
+	private MappedByteBuffer window;
+
+	/**
+	 * Open the given file
+	 * @param file the file to read
+	 * @throws IOException
+	 */
+	public MappedFileInputStream(File file) throws IOException {
+		super();
+		this.file = new RandomAccessFile(file, "r");
+		this.channel = this.file.getChannel();
+		this.size = channel.size();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int read() throws IOException {
+		if (!ensureWindow()) {
+			return -1;
+		}
+		return window.get() & 0xFF;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!ensureWindow()) {
+			return -1;
+		}
+		int count = Math.min(len, window.remaining());
+		window.get(b, off, count);
+		return count;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0) {
+			return 0;
+		}
+		long pos = getPosition();
+		long count = Math.min(n, size - pos);
+		seek(pos + count);
+		return count;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int available() throws IOException {
+		return (int)Math.min(Integer.MAX_VALUE, size - getPosition());
+	}
+
+	/**
+	 * Return the position in the file of the next byte to be read
+	 * @return long value
+	 */
+	public long getPosition() {
+		return window != null ? windowStart + window.position() : windowStart;
+	}
+
+	/**
+	 * Move to the given position in the file
+	 * @param pos the position of the next byte to be read
+	 */
+	public void seek(long pos) {
+		if ((window != null) && (pos >= windowStart) && (pos <= windowStart + window.limit())) {
+			window.position((int)(pos - windowStart));
+		}
+		else {
+			releaseWindow();
+			windowStart = pos;
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException {
+		releaseWindow();
+		channel.close();
+		file.close();
+	}
+
+	/**
+	 * Make sure there is a window with bytes to be read, mapping the next window of the file if necessary
+	 * @return false if the end of the file was reached
+	 * @throws IOException
+	 */
+	private boolean ensureWindow() throws IOException {
+		if ((window != null) && (window.hasRemaining())) {
+			return true;
+		}
+
+		long pos = getPosition();
+		if (pos >= size) {
+			return false;
+		}
+		releaseWindow();
+		windowStart = pos;
+		window = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW_SIZE, size - pos));
+		return true;
+	}
+
+	/**
+	 * Release the mapping of the current window. The window must not be used after that
+	 */
+	private void releaseWindow() {
+		if (window == null) {
+			return;
+		}
+		windowStart += window.position();
+		unmap(window);
+		window = null;
+	}
+
+	/**
+	 * Release the memory mapped by the buffer. There is no public API to do that, so the
+	 * cleaner of the buffer is called by reflection. If it's not available, the mapping
+	 * is just released when the buffer is garbage collected
+	 * @param buffer the buffer to release
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			try {
+				// Java 9 and later
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				Field field = unsafeClass.getDeclaredField("theUnsafe");
+				field.setAccessible(true);
+				invokeCleaner.invoke(field.get(null), buffer);
+			} catch (NoSuchMethodException e) {
+				// Java 8 and earlier
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			}
+		} catch (Exception e) {
+			// the mapping is released by the garbage collector
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/**
+ *
+ */
+package com.rmemoria.datastream.impl;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import com.rmemoria.datastream.DataStreamException;
+
+/**
+ * Create new instances of a class. The constructor (or the static factory method) is
+ * resolved just once and kept with its access checks suppressed, so creating an
+ * object is just the invocation itself.
+ * <p>
+ * Object graphs may declare the properties to be passed as arguments to the constructor
+ * or to the factory method, allowing the creation of immutable objects with no set methods
+ *
+ * @author Ricardo Memoria
+ *
+ */
+public class ObjectInstantiator {
+
+	private static final Object[] NO_ARGS = new Object[0];
+
+	private Class<?> objectClass;
+	private Constructor<?> constructor;
+	private Method factoryMethod;
+	private PropertyMetaData[] arguments;
+
+	/**
+	 * Create an instantiator that uses the default constructor of the class
+	 * @param objectClass the class to create instances of
+	 */
+	public ObjectInstantiator(Class<?> objectClass) {
+		super();
+		this.objectClass = objectClass;
+		this.arguments = new PropertyMetaData[0];
+		try {
+			constructor = objectClass.getDeclaredConstructor();
+			FieldAccess.makeAccessible(constructor);
+		} catch (NoSuchMethodException e) {
+			// error is raised just if an instance is required
+			constructor = null;
+		}
+	}
+
+	/**
+	 * Create an instantiator that passes the values of the given properties to a constructor
+	 * or to a static factory method of the class
+	 * @param cmd the class meta data that declares the properties
+	 * @param arguments the properties passed as arguments, in the order they are declared
+	 * @param factoryMethodName the name of a static method of the class, or null to use a constructor
+	 */
+	public ObjectInstantiator(ClassMetaData cmd, PropertyMetaData[] arguments, String factoryMethodName) {
+		super();
+		this.objectClass = cmd.getGraphClass();
+		this.arguments = arguments;
+
+		Class<?>[] types = new Class<?>[arguments.length];
+		for (int i = 0; i < arguments.length; i++) {
+			types[i] = arguments[i].getPropertyType();
+		}
+
+		if (factoryMethodName != null) {
+			factoryMethod = findFactoryMethod(factoryMethodName, types);
+			if (factoryMethod == null) {
+				throw new DataStreamException(cmd, null, "No static method " + factoryMethodName +
+						" found in class " + objectClass.getName() + " compatible with the arguments " + argumentNames());
+			}
+			FieldAccess.makeAccessible(factoryMethod);
+		}
+		else {
+			constructor = findConstructor(types);
+			if (constructor == null) {
+				throw new DataStreamException(cmd, null, "No constructor found in class " + objectClass.getName() +
+						" compatible with the arguments " + argumentNames());
+			}
+			FieldAccess.makeAccessible(constructor);
+		}
+	}
+
+	/**
+	 * Create a new instance of the class
+	 * @param args the values of the argument properties, in the same order. Null if there is no argument
+	 * @return the new object
+	 */
+	public Object newInstance(Object[] args) {
+		if (args == null) {
+			args = NO_ARGS;
+		}
+		try {
+			if (factoryMethod != null) {
+				return factoryMethod.invoke(null, args);
+			}
+			if (constructor == null) {
+				throw new DataStreamException("No default constructor found in class " + objectClass.getName());
+			}
+			return constructor.newInstance(args);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			throw new RuntimeException(cause);
+		} catch (InstantiationException e) {
+			throw new RuntimeException(e);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Return the value to be passed as argument when the value of the given
+	 * argument property is not available. Primitive arguments receive its default value
+	 * @param index the position of the argument
+	 * @return the value to be passed
+	 */
+	public Object getNullArgument(int index) {
+		Class<?> type = constructor != null ? constructor.getParameterTypes()[index] :
+			factoryMethod.getParameterTypes()[index];
+		return FieldAccess.defaultNullValue(type);
+	}
+
+	/**
+	 * Search for a constructor whose parameters accept the given types
+	 * @param types the types of the arguments
+	 * @return instance of {@link Constructor} or null if not found
+	 */
+	private Constructor<?> findConstructor(Class<?>[] types) {
+		for (Constructor<?> c: objectClass.getDeclaredConstructors()) {
+			if (isCompatible(c.getParameterTypes(), types)) {
+				return c;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Search for a static method of the class that accepts the given types
+	 * and returns an instance of the class
+	 * @param name the method name
+	 * @param types the types of the arguments
+	 * @return instance of {@link Method} or null if not found
+	 */
+	private Method findFactoryMethod(String name, Class<?>[] types) {
+		for (Method m: objectClass.getDeclaredMethods()) {
+			if ((m.getName().equals(name)) && (Modifier.isStatic(m.getModifiers())) &&
+				(objectClass.isAssignableFrom(m.getReturnType())) &&
+				(isCompatible(m.getParameterTypes(), types))) {
+				return m;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Check if the values of the given types can be passed to the parameters
+	 * @param params the parameter types
+	 * @param types the types of the values
+	 * @return true if compatible
+	 */
+	private boolean isCompatible(Class<?>[] params, Class<?>[] types) {
+		if (params.length != types.length) {
+			return false;
+		}
+		for (int i = 0; i < params.length; i++) {
+			if (!wrapperType(params[i]).isAssignableFrom(wrapperType(types[i]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the wrapper class of a primitive type, or the own type if it's not primitive
+	 * @param type the class type
+	 * @return Class instance
+	 */
+	private static Class<?> wrapperType(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		}
+		Object val = FieldAccess.defaultNullValue(type);
+		return val != null ? val.getClass() : type;
+	}
+
+	/**
+	 * Return the name of the argument properties, used in error messages
+	 * @return String value
+	 */
+	private String argumentNames() {
+		StringBuilder s = new StringBuilder("(");
+		for (int i = 0; i < arguments.length; i++) {
+			if (i > 0) {
+				s.append(", ");
+			}
+			s.append(arguments[i].getPropertyName()).append(": ").append(arguments[i].getPropertyType().getName());
+		}
+		return s.append(')').toString();
+	}
+
+	/**
+	 * Return true if the given property is passed as an argument when creating the object
+	 * @param prop the property to check
+	 * @return boolean value
+	 */
+	public boolean isArgument(PropertyMetaData prop) {
+		for (PropertyMetaData arg: arguments) {
+			if (arg == prop) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Return the properties passed as arguments to the constructor or factory method
+	 * @return array of {@link PropertyMetaData}
+	 */
+	public PropertyMetaData[] getArguments() {
+		return arguments;
+	}
+
+	/**
+	 * @return the class of the objects created
+	 */
+	public Class<?> getObjectClass() {
+		return objectClass;
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.rmemoria.datastream.DataPullUnmarshaller;
+
+/**
+ * Iterator of the objects read from an input stream by a {@link DataPullUnmarshaller}.
+ * Objects are read on demand, and the input stream is closed when the last object
+ * is read, when an error occurs or when the iterator is closed by the client
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class ObjectIterator implements Iterator<Object>, Closeable {
+
+	private DataPullUnmarshaller unmarshaller;
+	private InputStream stream;
+
+	/**
+	 * Create the iterator, opening the stream in the unmarshaller
+	 * @param unmarshaller the unmarshaller that will read the objects
+	 * @param stream the input stream containing the objects
+	 */
+	public ObjectIterator(DataPullUnmarshaller unmarshaller, InputStream stream) {
+		super();
+		this.unmarshaller = unmarshaller;
+		this.stream = stream;
+		unmarshaller.open(stream);
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext() {
+		if (stream == null) {
+			return false;
+		}
+
+		boolean next = false;
+		try {
+			next = unmarshaller.hasNext();
+		} finally {
+			if (!next) {
+				close();
+			}
+		}
+		return next;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Object next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return unmarshaller.next();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Objects cannot be removed from the input stream");
+	}
+
+	/**
+	 * Stop reading the objects and close the input stream
+	 */
+	@Override
+	public void close() {
+		if (stream == null) {
+			return;
+		}
+		unmarshaller.close();
+		try {
+			stream.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			stream = null;
+		}
+	}
+}
@@ -1,27 +1,34 @@
 /**
- * 
+ *
  */
 package com.rmemoria.datastream.impl;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import com.rmemoria.datastream.StreamContext;
-
 /**
  * Store the values of the object while reading the XML document. Once all
  * values of the object is read, the object is instantiated and all its values
- * are written to the respective properties
- * 
+ * are written to the respective properties.
+ * <p>
+ * Values are stored in a flat array, in the position of the index of its end point
+ * property (see {@link PropertyMetaData#getIndex()}), so no search or path resolution
+ * is done while reading the document. Instances may be reused by calling
+ * {@link #reset(ClassMetaData)}
+ *
  * @author Ricardo Memoria
  *
  */
 public class ObjectValues {
 
 	private ClassMetaData classMetaData;
-	private List<PropertyValue> properties = new ArrayList<PropertyValue>();
+	private Object[] values;
+	private boolean[] assigned;
+	private int size;
+	private int count;
 	private Map<String, String> customProperties;
 
 	/**
@@ -30,148 +37,266 @@ public class ObjectValues {
 	 */
 	public ObjectValues(ClassMetaData classMetaData) {
 		super();
+		reset(classMetaData);
+	}
+
+
+	/**
+	 * Clear the values, preparing the instance to receive the values of a new object
+	 * @param classMetaData the class of the new object
+	 */
+	public void reset(ClassMetaData classMetaData) {
+		classMetaData.compile();
 		this.classMetaData = classMetaData;
+		this.customProperties = null;
+
+		int newsize = classMetaData.getEndPointProperties().size();
+		if ((values == null) || (values.length < newsize)) {
+			values = new Object[newsize];
+			assigned = new boolean[newsize];
+		}
+		else {
+			Arrays.fill(values, 0, size, null);
+			Arrays.fill(assigned, 0, size, false);
+		}
+		size = newsize;
+		count = 0;
 	}
 
 
 	/**
-	 * Add a new value to the object value tree
-	 * @param propertyName
-	 * @param value
+	 * Add a new value to the object
+	 * @param prop the end point property of the value
+	 * @param value the value of the property
 	 */
-	public void addValue(String propertyName, Object value) {
-		String[] props = propertyName.split("\\.");
-		PropertyMetaData prop = classMetaData.findPropertyByName(props[0]);
-		if (prop == null) {
-			throw new RuntimeException("Property not found: " + propertyName);
-		}
-
-		PropertyValue pv = findPropertyValue(prop);
-		if (pv == null) {
-			pv = new PropertyValue(null, prop, null);
-			properties.add(pv);
-		}
-		
-		if (props.length > 1) {
-			for (int i = 1; i < props.length; i++) {
-				PropertyMetaData aux = prop.findPropertyByName(props[i]);
-				if (aux == null) {
-					throw new RuntimeException("Property not found: " + props[i]);
-				}
-				PropertyValue pvchild = pv.findChildPropertyValue(aux);
-				if (pvchild == null) {
-					pvchild = pv.addChildValue(aux, null);
-				}
-				prop = aux;
-				pv = pvchild;
-			}
+	public void addValue(PropertyMetaData prop, Object value) {
+		int index = prop.getIndex();
+		if (index < 0) {
+			throw new RuntimeException("Property not found: " + prop.getPath());
+		}
+
+		if (!assigned[index]) {
+			assigned[index] = true;
+			count++;
 		}
-		
-		pv.setValue(value);
+		values[index] = value;
 	}
-	
-	
+
+
 	/**
-	 * Get the value related to the given property name
-	 * @param propname is the property name
-	 * @return instance of {@link Object} class
+	 * Get the value related to the given property
+	 * @param prop the end point property
+	 * @return instance of {@link Object} class, or null if no value was assigned
 	 */
-	public Object getValue(String propname) {
-		String[] props = propname.split("\\.");
-		PropertyValue val = null;
-		for (String pname: props) {
-			if (val == null) {
-				val = findPropertyByName(pname);
-			}
-			else {
-				val = val.findChildPropertyByName(pname);
-			}
-			if (val == null) {
-				break;
+	public Object getValue(PropertyMetaData prop) {
+		int index = prop.getIndex();
+		return index >= 0 ? values[index] : null;
+	}
+
+	/**
+	 * Return true if a value was assigned to the given property, even if null, or
+	 * to any end point property nested in the property
+	 * @param prop instance of {@link PropertyMetaData}
+	 * @return boolean value
+	 */
+	public boolean isAssigned(PropertyMetaData prop) {
+		for (int i = prop.getEndpointStart(); i < prop.getEndpointEnd(); i++) {
+			if (assigned[i]) {
+				return true;
 			}
 		}
+		return false;
+	}
 
-//		if (val == null) {
-//			throw new RuntimeException("Property not found: " + propname);
-//		}
-		return val != null? val.getValue(): null;
+	/**
+	 * Return true if no value was assigned to the object
+	 * @return boolean value
+	 */
+	public boolean isEmpty() {
+		return count == 0;
 	}
 
+
 	/**
-	 * Search for a property value by its property name
-	 * @param propname
+	 * Create a new object from the values in the class. The map of values is just created
+	 * if there is an interceptor to receive it, otherwise the object is created directly by the
+	 * {@link ObjectInstantiator} of the class, receiving the values of the constructor arguments
+	 * @param context
 	 * @return
 	 */
-	private PropertyValue findPropertyByName(String propname) {
-		for (PropertyValue pv: properties) {
-			if (pv.getProperty().getPropertyName().equals(propname)) {
-				return pv;
+	public Object createObject(StreamContextImpl context) {
+		ObjectInstantiator instantiator = getClassMetaData().getInstantiator();
+
+		Object obj = null;
+		if (context.hasInterceptors()) {
+			Map<String, Object> attrs = new HashMap<String, Object>();
+			addAttributes(attrs, 0, size, null);
+			obj = context.interceptNewObject(getClassMetaData().getGraphClass(), attrs);
+			if ((obj == null) && (attrs.size() == 0)) {
+				return null;
 			}
 		}
-		return null;
+		else if (!hasValues(0, size)) {
+			return null;
+		}
+
+		boolean created = obj == null;
+		if (created) {
+			obj = instantiator.newInstance(getArgumentValues(instantiator));
+		}
+
+        // set the values in the new object
+        for (PropertyMetaData prop: getClassMetaData().getProperties()) {
+            // arguments were already passed to the constructor
+            if ((instantiator.isArgument(prop)) &&
+                (created || !prop.getFieldAccess().isWritable())) {
+                continue;
+            }
+            writePropertyValue(context, prop, obj, true);
+        }
+
+		return obj;
 	}
-	
+
 	/**
-	 * Find a property value by its property meta data information
-	 * @param pmd instance of {@link PropertyMetaData} to search for value
-	 * @return instance of {@link PropertyValue}
+	 * Write the value of the property in the owner object. If the property is a composed
+	 * property, its object is created and its nested values are written to it
+	 * @param context
+	 * @param prop the property to write the value
+	 * @param owner the object that contains the property
+	 * @param root if true, the property is declared in the class, and null values
+	 * declared in the document are not written
 	 */
-	public PropertyValue findPropertyValue(PropertyMetaData pmd) {
-		for (PropertyValue pv: properties) {
-			if (pv.getProperty() == pmd) {
-				return pv;
+	protected void writePropertyValue(StreamContextImpl context, PropertyMetaData prop, Object owner, boolean root) {
+		if (prop.isComposed()) {
+			if (!isAssigned(prop)) {
+				return;
+			}
+			Object value = createValue(context, prop);
+			prop.getFieldAccess().setValue(owner, value);
+			if (value != null) {
+				for (PropertyMetaData child: prop.getProperties()) {
+					writePropertyValue(context, child, value, false);
+				}
+			}
+			return;
+		}
+
+		int index = prop.getIndex();
+		if (!assigned[index]) {
+			return;
+		}
+		Object value = values[index];
+		if ((root) && (value == Constants.NULL_VALUE)) {
+			return;
+		}
+
+		// get the linked property
+		PropertyMetaData linkprop = prop.getTypeMetaData() != null? prop.getTypeMetaData().getLinkParentObject() : null;
+
+		if (prop.isCollection()) {
+            if (value != null) {
+                Collection lst = prop.getCollectionObject(context, owner);
+                for (Object item: (Collection)value) {
+                    lst.add(item);
+                    // is the property link between objects defined?
+                    if (linkprop != null) {
+                        // link objects in the list with its parent by its link property
+                        linkprop.getFieldAccess().setValue(item, owner);
+                    }
+                }
+            }
+		}
+		else {
+			prop.getFieldAccess().setValue(owner, value);
+			// set the link between the object and the value, if available
+			if ((linkprop != null) && (value != null)) {
+				linkprop.getFieldAccess().setValue(value, owner);
 			}
 		}
-		return null;
 	}
-	
-	
+
 	/**
-	 * Create a new object from the values in the class
+	 * Create the object of a composed property, i.e, the object that will receive
+	 * the values of its nested properties
 	 * @param context
-	 * @return
+	 * @param prop the composed property
+	 * @return the new object, or null if there is no value to write in the object
 	 */
-	public Object createObject(StreamContext context) {
-		Map<String, Object> attrs = new HashMap<String, Object>();
-		for (PropertyValue val: properties) {
-            if (val.getValue() != Constants.NULL_VALUE) {
-                val.addAttributes(attrs, null);
-            }
+	protected Object createValue(StreamContextImpl context, PropertyMetaData prop) {
+		// no interceptor to receive the values, so the map is not necessary
+		if (!context.hasInterceptors()) {
+			return hasValues(prop.getEndpointStart(), prop.getEndpointEnd()) ?
+					context.getInstantiator(prop.getPropertyType()).newInstance(null) : null;
 		}
-		Object obj = context.createInstance(getClassMetaData().getGraphClass(), attrs);
 
-        if (obj != null) {
-            // set the values in the new object
-            for (PropertyValue val: properties) {
-                if (val.getValue() != Constants.NULL_VALUE) {
-                    val.writePropertyValue(context, obj);
-                }
-            }
-        }
+		Map<String, Object> params = new HashMap<String, Object>();
+		addAttributes(params, prop.getEndpointStart(), prop.getEndpointEnd(), prop);
+		return context.createInstance(prop.getPropertyType(), params);
+	}
 
-		return obj;
+	/**
+	 * Add the values that will be used to send back to the client
+	 * in order to create the object
+	 * @param attrs Map containing the properties and its values
+	 * @param start the index of the first end point property
+	 * @param end the index after the last end point property
+	 * @param limitParent is the parent that will limit the path resolution
+	 */
+	protected void addAttributes(Map<String, Object> attrs, int start, int end, PropertyMetaData limitParent) {
+		List<PropertyMetaData> props = getClassMetaData().getEndPointProperties();
+		for (int i = start; i < end; i++) {
+			Object value = values[i];
+			if ((value != null) && (value != Constants.NULL_VALUE)) {
+				PropertyMetaData prop = props.get(i);
+				attrs.put(limitParent != null ? prop.getPath(limitParent) : prop.getPath(), value);
+			}
+		}
 	}
 
-	
 	/**
-	 * @return the classMetaData
+	 * Return true if any value was read for the given range of end point properties
+	 * @param start the index of the first end point property
+	 * @param end the index after the last end point property
+	 * @return boolean value
 	 */
-	public ClassMetaData getClassMetaData() {
-		return classMetaData;
+	protected boolean hasValues(int start, int end) {
+		for (int i = start; i < end; i++) {
+			if ((values[i] != null) && (values[i] != Constants.NULL_VALUE)) {
+				return true;
+			}
+		}
+		return false;
 	}
+
 	/**
-	 * @param classMetaData the classMetaData to set
+	 * Return the values of the properties passed as arguments to create the object
+	 * @param instantiator the instantiator of the class
+	 * @return array of values, or null if there is no argument
 	 */
-	public void setClassMetaData(ClassMetaData classMetaData) {
-		this.classMetaData = classMetaData;
+	protected Object[] getArgumentValues(ObjectInstantiator instantiator) {
+		PropertyMetaData[] args = instantiator.getArguments();
+		if (args.length == 0) {
+			return null;
+		}
+
+		Object[] vals = new Object[args.length];
+		for (int i = 0; i < args.length; i++) {
+			Object val = getValue(args[i]);
+			if ((val == null) || (val == Constants.NULL_VALUE)) {
+				val = instantiator.getNullArgument(i);
+			}
+			vals[i] = val;
+		}
+		return vals;
 	}
-	
+
+
 	/**
-	 * Return the list of property values
-	 * @return
+	 * @return the classMetaData
 	 */
-	public List<PropertyValue> getProperties() {
-		return properties;
+	public ClassMetaData getClassMetaData() {
+		return classMetaData;
 	}
 
 
@@ -11,6 +11,7 @@ import java.util.Map;
 
 import com.rmemoria.datastream.DataStreamException;
 import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.impl.DefaultConverters.ValueType;
 import com.rmemoria.datastream.jaxb.Property;
 import com.rmemoria.datastream.jaxb.PropertyUse;
 
@@ -30,6 +31,14 @@ public class PropertyMetaData {
 	private ClassMetaData compactibleTypeMetaData;
 	private boolean compactibleTypeChecked = false;
 	private List<PropertyMetaData> properties;
+	private String elementName;
+	private String path;
+	private ValueType valueType;
+	private FieldAccess[] accessChain;
+	private Boolean serializationRequired;
+	private int index = -1;
+	private int endpointStart = -1;
+	private int endpointEnd = -1;
 
 	
 	public PropertyMetaData(ClassMetaData classMetaData) {
@@ -63,6 +72,10 @@ public class PropertyMetaData {
 	 * @return String value
 	 */
 	public String getElementName() {
+		if (elementName != null) {
+			return elementName;
+		}
+
 		if (property != null) {
 			String elem = property.getElementName();
 			if (elem == null)
@@ -97,6 +110,10 @@ public class PropertyMetaData {
 	 * @return String value
 	 */
 	public String getPath() {
+		if (path != null) {
+			return path;
+		}
+
 		String s = getPropertyName();
 		if (parent != null) {
 			s = parent.getPath() + "." + s;
@@ -202,10 +219,182 @@ public class PropertyMetaData {
 
 		if ((compactibleTypeMetaData == null) && (!compactibleTypeChecked)) {
 			compactibleTypeMetaData = getClassMetaData().getContext().findClassMetaDataByClass(getConvertionType());
+			compactibleTypeChecked = true;
 		}
 		return compactibleTypeMetaData;
 	}
 
+	/**
+	 * Resolve the element name, the path and the graph this property points to, so
+	 * they are not computed again every time a value is read or written. Called by
+	 * {@link ClassMetaData#compile()} when the schema is completely scanned
+	 */
+	protected void compile() {
+		elementName = getElementName();
+		path = getPath();
+		valueType = getValueType();
+		accessChain = getAccessChain();
+		getCompactibleTypeMetaData();
+	}
+
+	/**
+	 * Return the list of field accesses to be followed, from the outer parent
+	 * property to this property, in order to read the value of the property
+	 * @return array of {@link FieldAccess}
+	 */
+	protected FieldAccess[] getAccessChain() {
+		if (accessChain != null) {
+			return accessChain;
+		}
+
+		int count = 0;
+		for (PropertyMetaData p = this; p != null; p = p.getParent()) {
+			count++;
+		}
+
+		FieldAccess[] chain = new FieldAccess[count];
+		for (PropertyMetaData p = this; p != null; p = p.getParent()) {
+			if (p.getFieldAccess() == null) {
+				throw new DataStreamException("Not possible to access field " + getPropertyName());
+			}
+			chain[--count] = p.getFieldAccess();
+		}
+		return chain;
+	}
+
+	/**
+	 * Return true if the property is serialized, or, if it's a composed property,
+	 * if any of its nested properties is serialized
+	 * @return boolean value
+	 */
+	public boolean isSerializationRequired() {
+		if (serializationRequired == null) {
+			boolean req = false;
+			if (properties == null) {
+				req = !isSerializationIgnored();
+			}
+			else {
+				for (PropertyMetaData pmd: properties) {
+					if (pmd.isSerializationRequired()) {
+						req = true;
+						break;
+					}
+				}
+			}
+			serializationRequired = req;
+		}
+		return serializationRequired;
+	}
+
+	/**
+	 * Read the values of the end point properties nested in this property from the given
+	 * owner object, and store them in the array in the position of the index of each
+	 * end point property. Each intermediate object is read just once, no matter how many
+	 * nested properties it has
+	 * @param owner the object that contains this property, or null if not available
+	 * @param values the array to receive the values
+	 */
+	public void readValues(Object owner, Object[] values) {
+		Object val = null;
+		if (owner != null) {
+			if (fieldAccess == null) {
+				throw new DataStreamException("Not possible to access field " + getPropertyName());
+			}
+			val = fieldAccess.getValue(owner);
+		}
+
+		if (properties == null) {
+			values[index] = val;
+			return;
+		}
+
+		for (PropertyMetaData pmd: properties) {
+			if (pmd.isSerializationRequired()) {
+				pmd.readValues(val, values);
+			}
+		}
+	}
+
+	/**
+	 * Return the position of the property in the list of end point properties
+	 * of its class, or -1 if it's not an end point property
+	 * @return int value
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * @param index the position of the property in the list of end point properties
+	 */
+	protected void setIndex(int index) {
+		this.index = index;
+	}
+
+	/**
+	 * Update the range of positions of the end point properties nested in this property.
+	 * The end point properties of a composed property are always sequential in the list
+	 * of end point properties of its class. Must be called after the index of the end
+	 * point properties is set
+	 */
+	protected void updateEndpointRange() {
+		if (properties == null) {
+			endpointStart = index;
+			endpointEnd = index + 1;
+			return;
+		}
+
+		for (PropertyMetaData pmd: properties) {
+			pmd.updateEndpointRange();
+		}
+		endpointStart = properties.get(0).getEndpointStart();
+		endpointEnd = properties.get(properties.size() - 1).getEndpointEnd();
+	}
+
+	/**
+	 * Return the position of the first end point property nested in this property,
+	 * or the own index if it's an end point property
+	 * @return int value
+	 */
+	public int getEndpointStart() {
+		return endpointStart;
+	}
+
+	/**
+	 * Return the position after the last end point property nested in this property
+	 * @return int value
+	 */
+	public int getEndpointEnd() {
+		return endpointEnd;
+	}
+
+	/**
+	 * Return the type of the value used by the default converter to convert the
+	 * property value from and to string
+	 * @return instance of {@link ValueType}
+	 */
+	public ValueType getValueType() {
+		if (valueType != null) {
+			return valueType;
+		}
+		return ValueType.of(getConvertionType());
+	}
+
+	/**
+	 * Return true if the property value is of a primitive type that can be read
+	 * directly from the object without boxing, i.e, it's declared as a primitive
+	 * type directly in the class of the graph
+	 * @return boolean value
+	 */
+	public boolean isPrimitiveValue() {
+		if ((parent != null) || (!fieldAccess.getFieldType().isPrimitive())) {
+			return false;
+		}
+		ValueType type = getValueType();
+		return (type == ValueType.INT) || (type == ValueType.LONG) || (type == ValueType.FLOAT) ||
+				(type == ValueType.DOUBLE) || (type == ValueType.BOOLEAN) || (type == ValueType.CHAR);
+	}
+
 
 	/**
 	 * Return the type to be converted from and to string
@@ -312,21 +501,10 @@ public class PropertyMetaData {
 			return fieldAccess.getValue(obj);
 		}
 		
-		// create list of all parents including the own property
-		List<PropertyMetaData> props = new ArrayList<PropertyMetaData>();
-		PropertyMetaData p = this;
-		while (p != null) {
-			props.add(p);
-			p = p.getParent();
-		}
-		
-		// read from the first parent (the last in the list) to this property (the first included)
+		// read from the first parent to this property
+		FieldAccess[] chain = getAccessChain();
 		Object val = obj;
-		for (int i = props.size() - 1; i >= 0; i--) {
-            FieldAccess fa = props.get(i).getFieldAccess();
-            if (fa == null) {
-                throw new DataStreamException("Not possible to access field " + getPropertyName());
-            }
+		for (FieldAccess fa: chain) {
 			val = fa.getValue(val);
 			if (val == null) {
 				return null;
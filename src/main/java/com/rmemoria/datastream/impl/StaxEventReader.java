@@ -0,0 +1,175 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.impl;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Implementation of the {@link XmlEventReader} using the StAX {@link XMLStreamReader}
+ * available in the JDK
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class StaxEventReader implements XmlEventReader {
+
+	private XMLStreamReader reader;
+	// attributes of the current element, reused between elements
+	private AttributesImpl attributes = new AttributesImpl();
+
+	/**
+	 * Create the event reader wrapping the given StAX reader
+	 * @param reader instance of {@link XMLStreamReader}
+	 */
+	public StaxEventReader(XMLStreamReader reader) {
+		super();
+		this.reader = reader;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext() {
+		try {
+			return reader.hasNext();
+		} catch (XMLStreamException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int next() {
+		try {
+			while (true) {
+				int event = reader.next();
+				switch (event) {
+				case XMLStreamConstants.START_ELEMENT:
+				case XMLStreamConstants.END_ELEMENT:
+				case XMLStreamConstants.END_DOCUMENT:
+					return event;
+
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					return XMLStreamConstants.CHARACTERS;
+				}
+				// comments, processing instructions and other events are ignored
+				if (!reader.hasNext()) {
+					return XMLStreamConstants.END_DOCUMENT;
+				}
+			}
+		} catch (XMLStreamException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public String getName() {
+		String prefix = reader.getPrefix();
+		if ((prefix == null) || (prefix.isEmpty())) {
+			return reader.getLocalName();
+		}
+		return prefix + ":" + reader.getLocalName();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Attributes getAttributes() {
+		int count = reader.getAttributeCount();
+		if (count == 0) {
+			return null;
+		}
+
+		attributes.clear();
+		for (int i = 0; i < count; i++) {
+			String local = reader.getAttributeLocalName(i);
+			String prefix = reader.getAttributePrefix(i);
+			String qname = (prefix == null) || (prefix.isEmpty()) ? local : prefix + ":" + local;
+			attributes.addAttribute("", local, qname, "CDATA", reader.getAttributeValue(i));
+		}
+		return attributes;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public String getText() {
+		return reader.getText();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public char[] getTextCharacters() {
+		return reader.getTextCharacters();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int getTextStart() {
+		return reader.getTextStart();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int getTextLength() {
+		return reader.getTextLength();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void skipElement() {
+		int depth = 1;
+		while (depth > 0) {
+			int event = next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+			else if (event == XMLStreamConstants.END_DOCUMENT) {
+				return;
+			}
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int getLineNumber() {
+		return reader.getLocation().getLineNumber();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int getColumnNumber() {
+		return reader.getLocation().getColumnNumber();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		try {
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -7,8 +7,11 @@ import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
@@ -17,6 +20,7 @@ import javax.xml.bind.Unmarshaller;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
+import com.rmemoria.datastream.CacheableDataInterceptor;
 import com.rmemoria.datastream.DataConverter;
 import com.rmemoria.datastream.DataInterceptor;
 import com.rmemoria.datastream.DataMarshaller;
@@ -24,6 +28,9 @@ import com.rmemoria.datastream.DataUnmarshaller;
 import com.rmemoria.datastream.StreamContext;
 import com.rmemoria.datastream.StreamFileType;
 import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.StreamFileTypeXMLFast;
+import com.rmemoria.datastream.StreamFileTypeXMLParallel;
+import com.rmemoria.datastream.StreamFileTypeXMLPull;
 import com.rmemoria.datastream.jaxb.GraphSchema;
 import com.rmemoria.datastream.jaxb.ObjectGraph;
 
@@ -39,7 +46,16 @@ public class StreamContextImpl implements StreamContext {
 	private Map<Class, DataConverter> converters = new HashMap<Class, DataConverter>();
 	private ClassMetaData classMetaData;
 	private CollectionMetaData collectionMetaData;
-	private static final DataConverter defaultConverter = new DefaultConverters();
+	private static final DefaultConverters defaultConverter = new DefaultConverters();
+	private Map<String, ClassMetaData> classesByElement = new HashMap<String, ClassMetaData>();
+	private Map<Class, ClassMetaData> classesByClass = new HashMap<Class, ClassMetaData>();
+	// graphs already resolved by the runtime class of the objects being marshalled
+	private Map<Class, ClassMetaData> resolvedClasses = new ConcurrentHashMap<Class, ClassMetaData>();
+	// indicates in the resolved classes that the runtime class has no graph
+	private static final ClassMetaData NO_CLASS_METADATA = new ClassMetaData(null, null, null);
+	private Map<Class, ObjectInstantiator> instantiators = new ConcurrentHashMap<Class, ObjectInstantiator>();
+	// names declared in the schema, used to initialize the symbol table of the tokenizer
+	private volatile String[] schemaNames;
 
 
 	/** {@inheritDoc}
@@ -79,10 +95,29 @@ public class StreamContextImpl implements StreamContext {
 			throw new IllegalArgumentException("The schema contains more than 1 item bellow graphSchema tag");
 
 		ClassPropertyScanner scan = new ClassPropertyScanner();
+		classesByElement.clear();
+		classesByClass.clear();
+		resolvedClasses.clear();
+		schemaNames = null;
 		if (graphSchema.getObjectGraph() != null) {
 			classMetaData = scan.scan(this, graphSchema.getObjectGraph());
+			classesByElement.put(classMetaData.getGraph().getName(), classMetaData);
+			classMetaData.compile();
+		}
+		else {
+			collectionMetaData = scan.scan(this, graphSchema.getObjectCollection());
+			for (ClassMetaData cmd: collectionMetaData.getClassesMetaData()) {
+				if (!classesByElement.containsKey(cmd.getGraph().getName())) {
+					classesByElement.put(cmd.getGraph().getName(), cmd);
+				}
+				if (!classesByClass.containsKey(cmd.getGraphClass())) {
+					classesByClass.put(cmd.getGraphClass(), cmd);
+				}
+			}
+			for (ClassMetaData cmd: collectionMetaData.getClassesMetaData()) {
+				cmd.compile();
+			}
 		}
-		else collectionMetaData = scan.scan(this, graphSchema.getObjectCollection());
 	}
 
 	/**
@@ -118,12 +153,22 @@ public class StreamContextImpl implements StreamContext {
 
 		return defaultConverter;
 	}
+
+	/**
+	 * Return the default converter, used when no specific converter is registered for
+	 * a class type
+	 * @return instance of {@link DefaultConverters}
+	 */
+	protected DefaultConverters getDefaultConverter() {
+		return defaultConverter;
+	}
 	
 	/** {@inheritDoc}
 	 */
 	@Override
 	public DataMarshaller createMarshaller(Class<? extends StreamFileType> type) {
-		if (type != StreamFileTypeXML.class)
+		if ((type != StreamFileTypeXML.class) && (type != StreamFileTypeXMLPull.class) &&
+			(type != StreamFileTypeXMLFast.class) && (type != StreamFileTypeXMLParallel.class))
 			throw new RuntimeException("Only the interface " + StreamFileTypeXML.class.getName() + " is supported by now");
 
 		return new XmlDataMarshallerImpl(this);
@@ -133,6 +178,15 @@ public class StreamContextImpl implements StreamContext {
 	 */
 	@Override
 	public DataUnmarshaller createUnmarshaller(Class<? extends StreamFileType> type) {
+		if (type == StreamFileTypeXMLPull.class)
+			return new XmlPullUnmarshallerImpl(this);
+
+		if (type == StreamFileTypeXMLFast.class)
+			return new XmlPullUnmarshallerImpl(this, true);
+
+		if (type == StreamFileTypeXMLParallel.class)
+			return new XmlParallelUnmarshallerImpl(this);
+
 		if (type != StreamFileTypeXML.class)
 			throw new RuntimeException("Only the interface " + StreamFileTypeXML.class.getName() + " is supported by now");
 
@@ -144,6 +198,7 @@ public class StreamContextImpl implements StreamContext {
 	@Override
 	public void addInterceptor(DataInterceptor interceptor) {
 		interceptors.add(interceptor);
+		resolvedClasses.clear();
 	}
 
 	/** {@inheritDoc}
@@ -151,6 +206,7 @@ public class StreamContextImpl implements StreamContext {
 	@Override
 	public void removeInterceptor(DataInterceptor interceptor) {
 		interceptors.remove(interceptor);
+		resolvedClasses.clear();
 	}
 
 	/** {@inheritDoc}
@@ -177,13 +233,39 @@ public class StreamContextImpl implements StreamContext {
 	}
 	
 	/**
-	 * Find instance of {@link ObjectGraph} of the given object
+	 * Find instance of {@link ObjectGraph} of the given object. The graph is resolved once
+	 * per runtime class of the object and kept in a cache, unless an interceptor consulted
+	 * doesn't declare its result as cacheable (see {@link CacheableDataInterceptor})
 	 * @param object
 	 * @return
 	 */
 	protected ClassMetaData findClassMetaData(Object object) {
-		Class clazz = getObjectClass(object);
-		return findClassMetaDataByClass(clazz);
+		Class runtimeClass = object.getClass();
+		ClassMetaData cmd = resolvedClasses.get(runtimeClass);
+		if (cmd != null) {
+			return cmd != NO_CLASS_METADATA ? cmd : null;
+		}
+
+		Class clazz = null;
+		boolean cacheable = true;
+		for (DataInterceptor interceptor: interceptors) {
+			if ((!(interceptor instanceof CacheableDataInterceptor)) ||
+				(!((CacheableDataInterceptor)interceptor).isObjectClassCacheable(runtimeClass))) {
+				cacheable = false;
+			}
+			clazz = interceptor.getObjectClass(object);
+			if (clazz != null)
+				break;
+		}
+		if (clazz == null) {
+			clazz = runtimeClass;
+		}
+
+		cmd = findClassMetaDataByClass(clazz);
+		if (cacheable) {
+			resolvedClasses.put(runtimeClass, cmd != null ? cmd : NO_CLASS_METADATA);
+		}
+		return cmd;
 	}
 	
 	
@@ -198,10 +280,7 @@ public class StreamContextImpl implements StreamContext {
 				return classMetaData;
 		}
 		else {
-			for (ClassMetaData cmd: collectionMetaData.getClassesMetaData()) {
-				if (cmd.getGraphClass() == clazz)
-					return cmd;
-			}
+			return classesByClass.get(clazz);
 		}
 
 		return null;
@@ -213,18 +292,7 @@ public class StreamContextImpl implements StreamContext {
 	 * @return {@link ClassMetaData} instance, or null if no class is found
 	 */
 	protected ClassMetaData findClassByElement(String elname) {
-		if (classMetaData != null) {
-			if (classMetaData.getGraph().getName().equals(elname))
-				 return classMetaData;
-		}
-		else {
-			for (ClassMetaData clazz: collectionMetaData.getClassesMetaData()) {
-				if (clazz.getGraph().getName().equals(elname))
-					return clazz;
-			}
-		}
-
-		return null;
+		return classesByElement.get(elname);
 	}
 
 	
@@ -236,23 +304,106 @@ public class StreamContextImpl implements StreamContext {
 	 */
 	@Override
 	public Object createInstance(Class clazz, Map<String, Object> params) {
-		Object val = null;
+		Object val = interceptNewObject(clazz, params);
+		
+		if (val == null && (params == null || params.size() > 0)) {
+			val = getInstantiator(clazz).newInstance(null);
+		}
+		return val;
+	}
+
+	/**
+	 * Ask the interceptors to create a new instance of the given class
+	 * @param clazz the class of the object to be created
+	 * @param params the values of the object
+	 * @return the object created by an interceptor, or null if no interceptor created it
+	 */
+	protected Object interceptNewObject(Class clazz, Map<String, Object> params) {
 		for (DataInterceptor dataInterceptor: interceptors) {
-			val = dataInterceptor.newObject(clazz, params);
+			Object val = dataInterceptor.newObject(clazz, params);
 			if (val != null)
-				break;
+				return val;
 		}
-		
-		if (val == null && params.size() > 0) {
-			try {
-				val = clazz.newInstance();
-			} catch (Exception e) {
-				throw new RuntimeException(e);
-			}
+		return null;
+	}
+
+	/**
+	 * Return true if there is any interceptor registered in the context
+	 * @return boolean value
+	 */
+	protected boolean hasInterceptors() {
+		return !interceptors.isEmpty();
+	}
+
+	/**
+	 * Return the object that creates new instances of the given class using its default
+	 * constructor. The constructor is resolved once per class
+	 * @param clazz the class to create instances of
+	 * @return instance of {@link ObjectInstantiator}
+	 */
+	protected ObjectInstantiator getInstantiator(Class clazz) {
+		ObjectInstantiator inst = instantiators.get(clazz);
+		if (inst == null) {
+			inst = new ObjectInstantiator(clazz);
+			instantiators.put(clazz, inst);
 		}
-		return val;
+		return inst;
 	}
 	
+	/**
+	 * Create a new symbol table initialized with the element and attribute names declared
+	 * in the schema. The names in the table are the same instances used as keys in the indexes
+	 * of the class meta data
+	 * @return instance of {@link SymbolTable}
+	 */
+	protected SymbolTable createSymbolTable() {
+		String[] names = schemaNames;
+		if (names == null) {
+			Set<String> lst = new HashSet<String>();
+			Set<ClassMetaData> visited = new HashSet<ClassMetaData>();
+			if (classMetaData != null) {
+				collectNames(classMetaData, lst, visited);
+			}
+			if (collectionMetaData != null) {
+				lst.add(collectionMetaData.getObjectCollection().getName());
+				for (ClassMetaData cmd: collectionMetaData.getClassesMetaData()) {
+					collectNames(cmd, lst, visited);
+				}
+			}
+			names = lst.toArray(new String[lst.size()]);
+			schemaNames = names;
+		}
+
+		SymbolTable symbols = new SymbolTable();
+		for (String name: names) {
+			symbols.add(name);
+		}
+		return symbols;
+	}
+
+	/**
+	 * Collect the names declared in the graph of the class and in the graphs of its properties
+	 * @param cmd the class meta data
+	 * @param names the set that will receive the names
+	 * @param visited the classes already visited
+	 */
+	private void collectNames(ClassMetaData cmd, Set<String> names, Set<ClassMetaData> visited) {
+		if (!visited.add(cmd)) {
+			return;
+		}
+		cmd.compile();
+		names.add(cmd.getGraph().getName());
+		if (cmd.getGraph().getCustomPropertiesNode() != null) {
+			names.add(cmd.getGraph().getCustomPropertiesNode());
+		}
+		for (PropertyMetaData prop: cmd.getEndPointProperties()) {
+			names.add(prop.getElementName());
+			if (prop.getTypeMetaData() != null) {
+				collectNames(prop.getTypeMetaData(), names, visited);
+			}
+		}
+	}
+
 	/**
 	 * @return the graphSchema
 	 */
@@ -0,0 +1,145 @@
+/**
+ *
+ */
+package com.rmemoria.datastream.impl;
+
+import java.nio.charset.Charset;
+
+/**
+ * Table of names read from a document in its UTF-8 representation. A name in the table
+ * always returns the same {@link String} instance, so no string is created for names
+ * already in the table. The table may be
+ * initialized with the names in use by the schema, so the strings returned are the
+ * same instances used as keys in the meta data indexes.
+ * <p>
+ * Names added with {@link #add(String)} are kept while the table exists. Since the table is
+ * reused between documents, the number of other names kept is limited, so documents with
+ * an open set of names don't increase the table indefinitely. When the limit is reached,
+ * new names are returned as new strings, not included in the table
+ *
+ * @author Ricardo Memoria
+ *
+ */
+public class SymbolTable {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	// maximum number of names found in documents kept in the table
+	private static final int MAX_DOCUMENT_SYMBOLS = 4096;
+
+	/**
+	 * An entry in the table
+	 */
+	private static class Entry {
+		private final byte[] bytes;
+		private final String symbol;
+		private final int hash;
+		private Entry next;
+
+		private Entry(byte[] bytes, String symbol, int hash, Entry next) {
+			this.bytes = bytes;
+			this.symbol = symbol;
+			this.hash = hash;
+			this.next = next;
+		}
+	}
+
+	private Entry[] table = new Entry[256];
+	private int count;
+	// number of names included by lookup
+	private int documentCount;
+
+	/**
+	 * Add a name to the table. If the name is already in the table, nothing is done
+	 * @param name the name to add
+	 */
+	public void add(String name) {
+		byte[] bytes = name.getBytes(UTF8);
+		int hash = hash(bytes, 0, bytes.length);
+		if (find(bytes, 0, bytes.length, hash) == null) {
+			put(bytes, name, hash);
+		}
+	}
+
+	/**
+	 * Return the name represented by the given UTF-8 bytes. If the name is not in
+	 * the table, it's included, unless the limit of names found in documents was reached
+	 * @param buf the buffer containing the name
+	 * @param offset the position of the first byte of the name in the buffer
+	 * @param length the number of bytes of the name
+	 * @return String value
+	 */
+	public String lookup(byte[] buf, int offset, int length) {
+		int hash = hash(buf, offset, length);
+		String s = find(buf, offset, length, hash);
+		if (s != null) {
+			return s;
+		}
+
+		if (documentCount >= MAX_DOCUMENT_SYMBOLS) {
+			return new String(buf, offset, length, UTF8);
+		}
+		byte[] bytes = new byte[length];
+		System.arraycopy(buf, offset, bytes, 0, length);
+		s = new String(bytes, UTF8);
+		put(bytes, s, hash);
+		documentCount++;
+		return s;
+	}
+
+	/**
+	 * Search for the name in the table
+	 * @return the name, or null if not found
+	 */
+	private String find(byte[] buf, int offset, int length, int hash) {
+		Entry e = table[hash & (table.length - 1)];
+		while (e != null) {
+			if ((e.hash == hash) && (equals(e.bytes, buf, offset, length))) {
+				return e.symbol;
+			}
+			e = e.next;
+		}
+		return null;
+	}
+
+	/**
+	 * Include a new entry in the table, increasing its size when necessary
+	 */
+	private void put(byte[] bytes, String symbol, int hash) {
+		if (count >= table.length * 3 / 4) {
+			Entry[] old = table;
+			table = new Entry[old.length * 2];
+			for (Entry e: old) {
+				while (e != null) {
+					Entry next = e.next;
+					int index = e.hash & (table.length - 1);
+					e.next = table[index];
+					table[index] = e;
+					e = next;
+				}
+			}
+		}
+		int index = hash & (table.length - 1);
+		table[index] = new Entry(bytes, symbol, hash, table[index]);
+		count++;
+	}
+
+	private static int hash(byte[] buf, int offset, int length) {
+		int h = 0;
+		for (int i = offset; i < offset + length; i++) {
+			h = 31 * h + buf[i];
+		}
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean equals(byte[] bytes, byte[] buf, int offset, int length) {
+		if (bytes.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (bytes[i] != buf[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
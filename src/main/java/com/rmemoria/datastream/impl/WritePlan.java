@@ -0,0 +1,206 @@
+/**
+ *
+ */
+package com.rmemoria.datastream.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable information about how the objects of a graph are written, resolved once
+ * from the {@link ClassMetaData}. It contains the properties written as attributes and
+ * as elements (properties ignored in the serialization are not included), how each value
+ * is written, the null policy of each property and the plan of the graph each property
+ * points to, so the marshaller just has to read the values and write them
+ *
+ * @author Ricardo Memoria
+ *
+ */
+public class WritePlan {
+
+	/**
+	 * The way the value of a property is written
+	 */
+	public enum WriteMode {
+		/** primitive value, written without boxing if no converter is registered for its type */
+		PRIMITIVE,
+		/** value converted to string */
+		VALUE,
+		/** object written by the plan of its graph */
+		OBJECT,
+		/** collection of objects written by the plan of its graph */
+		COLLECTION;
+	}
+
+	/**
+	 * Information about how a single property is written
+	 */
+	public static class Entry {
+		private final PropertyMetaData property;
+		private final FieldAccess fieldAccess;
+		private final String name;
+		private final int index;
+		private final boolean nested;
+		private final boolean includeNullValues;
+		private final WriteMode mode;
+		private final ClassMetaData typeMetaData;
+
+		protected Entry(PropertyMetaData property) {
+			this.property = property;
+			this.fieldAccess = property.getFieldAccess();
+			this.name = property.getElementName();
+			this.index = property.getIndex();
+			this.nested = property.getParent() != null;
+			this.includeNullValues = property.isIncludeNullValues();
+			this.typeMetaData = property.isXmlAttribute() ? null : property.getCompactibleTypeMetaData();
+
+			if (typeMetaData != null) {
+				mode = property.isCollection() ? WriteMode.COLLECTION : WriteMode.OBJECT;
+			}
+			else if (property.isPrimitiveValue()) {
+				mode = WriteMode.PRIMITIVE;
+			}
+			else {
+				mode = WriteMode.VALUE;
+			}
+		}
+
+		/**
+		 * Return the value of the property in the given object
+		 * @param obj the object that contains the property
+		 * @param values the values of the nested properties read by
+		 * {@link ClassMetaData#readComposedValues(Object, Object[])}, or null if the graph has no nested property
+		 * @return the property value
+		 */
+		public Object getValue(Object obj, Object[] values) {
+			if (nested) {
+				return values != null ? values[index] : property.getValue(obj);
+			}
+			return fieldAccess.getValue(obj);
+		}
+
+		/**
+		 * @return the property
+		 */
+		public PropertyMetaData getProperty() {
+			return property;
+		}
+
+		/**
+		 * @return the attribute or element name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return true if the property must be written even if its value is null
+		 */
+		public boolean isIncludeNullValues() {
+			return includeNullValues;
+		}
+
+		/**
+		 * @return the way the value is written
+		 */
+		public WriteMode getMode() {
+			return mode;
+		}
+
+		/**
+		 * Return the plan of the graph the property points to
+		 * @return instance of {@link WritePlan}, or null if the property doesn't point to a graph
+		 */
+		public WritePlan getTypePlan() {
+			return typeMetaData != null ? typeMetaData.getWritePlan() : null;
+		}
+	}
+
+	private final ClassMetaData classMetaData;
+	private final String name;
+	private final Entry[] attributes;
+	private final Entry[] elements;
+	private final int endpointCount;
+	private final boolean composed;
+	private final String customPropertiesNode;
+
+	/**
+	 * Create the plan of the given class meta data
+	 * @param cmd instance of {@link ClassMetaData}
+	 */
+	public WritePlan(ClassMetaData cmd) {
+		super();
+		this.classMetaData = cmd;
+		this.name = cmd.getGraph().getName();
+		this.customPropertiesNode = cmd.getGraph().getCustomPropertiesNode();
+		this.composed = cmd.hasComposedProperties();
+
+		List<PropertyMetaData> props = cmd.getEndPointProperties();
+		this.endpointCount = props.size();
+
+		List<Entry> attrs = new ArrayList<Entry>();
+		List<Entry> elems = new ArrayList<Entry>();
+		for (PropertyMetaData prop: props) {
+			if (prop.isSerializationIgnored()) {
+				continue;
+			}
+			if (prop.isXmlAttribute()) {
+				attrs.add(new Entry(prop));
+			}
+			else {
+				elems.add(new Entry(prop));
+			}
+		}
+		this.attributes = attrs.toArray(new Entry[attrs.size()]);
+		this.elements = elems.toArray(new Entry[elems.size()]);
+	}
+
+	/**
+	 * @return the class meta data of the plan
+	 */
+	public ClassMetaData getClassMetaData() {
+		return classMetaData;
+	}
+
+	/**
+	 * @return the element name of the graph
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the properties written as XML attributes
+	 */
+	public Entry[] getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * @return the properties written as XML elements
+	 */
+	public Entry[] getElements() {
+		return elements;
+	}
+
+	/**
+	 * @return the number of end point properties of the graph
+	 */
+	public int getEndpointCount() {
+		return endpointCount;
+	}
+
+	/**
+	 * @return true if the graph contains nested properties declared with a path
+	 */
+	public boolean isComposed() {
+		return composed;
+	}
+
+	/**
+	 * @return the name of the node of custom properties, or null if not declared
+	 */
+	public String getCustomPropertiesNode() {
+		return customPropertiesNode;
+	}
+}
@@ -0,0 +1,279 @@
+/**
+ *
+ */
+package com.rmemoria.datastream.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.rmemoria.datastream.DataStreamException;
+
+/**
+ * Split an XML document in smaller documents, each one containing a sequence of complete
+ * elements declared just below the root element. The root element is repeated in every chunk,
+ * so each chunk is a valid document that can be read independently of the others.
+ * <p>
+ * The reader just scans the boundaries of the elements in the bytes of the document (tags,
+ * comments, CDATA sections and processing instructions), without decoding it, so it must be used
+ * with documents supported by the {@link XmlTokenizer}
+ *
+ * @author Ricardo Memoria
+ *
+ */
+public class XmlChunkReader {
+
+	private InputStream in;
+	private byte[] buf = new byte[64 * 1024];
+	private int pos;
+	private int limit;
+
+	private int chunkSize;
+	private byte[] chunk;
+	private int chunkLength;
+
+	// start tag of the root element, including its attributes
+	private byte[] rootStartTag;
+	private byte[] rootEndTag;
+	private boolean finished;
+
+	/**
+	 * Create the reader of the given input stream
+	 * @param in the input stream containing the document
+	 * @param chunkSize the minimum size, in bytes, of each chunk. A chunk is
+	 * completed when it's greater than this size and an element ends
+	 */
+	public XmlChunkReader(InputStream in, int chunkSize) {
+		super();
+		this.in = in;
+		this.chunkSize = chunkSize;
+		this.chunk = new byte[chunkSize + 1024];
+	}
+
+	/**
+	 * Return the next chunk of the document
+	 * @return array of bytes containing the chunk as a complete XML document,
+	 * or null if there is no more element to read
+	 * @throws IOException
+	 */
+	public byte[] nextChunk() throws IOException {
+		if (rootStartTag == null) {
+			readRootStartTag();
+		}
+		if (finished) {
+			return null;
+		}
+
+		chunkLength = 0;
+		append(rootStartTag, rootStartTag.length);
+		int headerLength = chunkLength;
+		boolean hasElements = false;
+
+		int depth = 0;
+		while (true) {
+			int b = next();
+			if (b < 0) {
+				throw error("Unexpected end of document");
+			}
+			if (b != '<') {
+				continue;
+			}
+
+			b = next();
+			if (b == '/') {
+				if (depth == 0) {
+					// end of the root element. The end tag is not included in the chunk
+					chunkLength -= 2;
+					finished = true;
+					break;
+				}
+				skipTag();
+				depth--;
+			}
+			else if (b == '!') {
+				b = next();
+				if (b == '-') {
+					skipUntil("-->");
+				}
+				else if (b == '[') {
+					skipUntil("]]>");
+				}
+				else {
+					throw error("Document type declaration is not supported");
+				}
+				continue;
+			}
+			else if (b == '?') {
+				skipUntil("?>");
+				continue;
+			}
+			else if (!skipTag()) {
+				depth++;
+			}
+
+			if (depth == 0) {
+				hasElements = true;
+				if (chunkLength - headerLength >= chunkSize) {
+					break;
+				}
+			}
+		}
+
+		if (!hasElements) {
+			return null;
+		}
+
+		append(rootEndTag, rootEndTag.length);
+		byte[] data = new byte[chunkLength];
+		System.arraycopy(chunk, 0, data, 0, chunkLength);
+		return data;
+	}
+
+	/**
+	 * Read the document until the start tag of the root element, keeping its bytes
+	 * @throws IOException
+	 */
+	private void readRootStartTag() throws IOException {
+		while (true) {
+			chunkLength = 0;
+			int b = next();
+			if (b < 0) {
+				throw error("No root element found");
+			}
+			if (b != '<') {
+				continue;
+			}
+
+			b = next();
+			if (b == '?') {
+				skipUntil("?>");
+			}
+			else if (b == '!') {
+				skipUntil("-->");
+			}
+			else {
+				break;
+			}
+		}
+
+		// the chunk buffer contains the '<' and the first char of the name
+		boolean empty = skipTag();
+		rootStartTag = new byte[chunkLength];
+		System.arraycopy(chunk, 0, rootStartTag, 0, chunkLength);
+
+		int len = 1;
+		while ((len < chunkLength) && (!isNameDelimiter(chunk[len]))) {
+			len++;
+		}
+		String name = new String(chunk, 1, len - 1, "UTF-8");
+		rootEndTag = ("</" + name + ">").getBytes("UTF-8");
+
+		if (empty) {
+			// the root element has no content, like <list/>
+			finished = true;
+		}
+	}
+
+	/**
+	 * Skip the rest of a start or end tag, until its '>'
+	 * @return true if the tag is an empty element tag, i.e, ends with '/>'
+	 * @throws IOException
+	 */
+	private boolean skipTag() throws IOException {
+		int quote = 0;
+		int prev = 0;
+		while (true) {
+			int b = next();
+			if (b < 0) {
+				throw error("Unexpected end of document");
+			}
+			if (quote != 0) {
+				if (b == quote) {
+					quote = 0;
+				}
+			}
+			else if ((b == '"') || (b == '\'')) {
+				quote = b;
+			}
+			else if (b == '>') {
+				return prev == '/';
+			}
+			prev = b;
+		}
+	}
+
+	/**
+	 * Skip the content until the given delimiter, including it
+	 * @param delim the delimiter
+	 * @throws IOException
+	 */
+	private void skipUntil(String delim) throws IOException {
+		int last = delim.charAt(delim.length() - 1);
+		while (true) {
+			int b = next();
+			if (b < 0) {
+				throw error("Unexpected end of document, expected " + delim);
+			}
+			if ((b == last) && (endsWith(delim))) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Check if the chunk ends with the given ASCII string
+	 */
+	private boolean endsWith(String s) {
+		int start = chunkLength - s.length();
+		if (start < 0) {
+			return false;
+		}
+		for (int i = 0; i < s.length(); i++) {
+			if (chunk[start + i] != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isNameDelimiter(byte b) {
+		return (b == ' ') || (b == '\n') || (b == '\r') || (b == '\t') || (b == '>') || (b == '/');
+	}
+
+	/**
+	 * Read the next byte of the document, including it in the chunk
+	 * @return the byte read, or -1 if the end of the stream was reached
+	 * @throws IOException
+	 */
+	private int next() throws IOException {
+		if (pos == limit) {
+			limit = in.read(buf, 0, buf.length);
+			pos = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		byte b = buf[pos++];
+		if (chunkLength == chunk.length) {
+			byte[] aux = new byte[chunk.length * 2];
+			System.arraycopy(chunk, 0, aux, 0, chunkLength);
+			chunk = aux;
+		}
+		chunk[chunkLength++] = b;
+		return b & 0xFF;
+	}
+
+	private void append(byte[] data, int length) {
+		if (chunkLength + length > chunk.length) {
+			byte[] aux = new byte[Math.max(chunk.length * 2, chunkLength + length)];
+			System.arraycopy(chunk, 0, aux, 0, chunkLength);
+			chunk = aux;
+		}
+		System.arraycopy(data, 0, chunk, chunkLength, length);
+		chunkLength += length;
+	}
+
+	private DataStreamException error(String msg) {
+		return new DataStreamException("Malformed XML: " + msg);
+	}
+}
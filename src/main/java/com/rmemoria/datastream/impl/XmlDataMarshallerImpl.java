@@ -5,6 +5,8 @@ package com.rmemoria.datastream.impl;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -19,7 +21,9 @@ import com.rmemoria.datastream.CustomPropertiesReader;
 import com.rmemoria.datastream.DataConverter;
 import com.rmemoria.datastream.DataMarshaller;
 import com.rmemoria.datastream.DataStreamException;
+import com.rmemoria.datastream.DataStreamIndex;
 import com.rmemoria.datastream.ObjectProvider;
+import com.rmemoria.datastream.impl.DefaultConverters.ValueType;
 
 /**
  * Implementation of the {@link DataMarshaller} interface for XML data type.
@@ -33,6 +37,16 @@ public class XmlDataMarshallerImpl implements DataMarshaller {
 	private StreamContextImpl context;
 	private XMLStreamWriter xml;
 	private Set<CustomPropertiesReader> propReaders;
+	// buffer to write primitive values without creating intermediate strings
+	private char[] charBuffer = new char[20];
+	// buffers to store the values of nested properties, by depth of the object being written
+	private List<Object[]> valueBuffers = new ArrayList<Object[]>();
+	private int depth;
+	// index of the objects written, if an index output was declared
+	private OutputStream indexOutput;
+	private String indexKey;
+	private DataStreamIndex index;
+	private CountingOutputStream counter;
 	
 	/**
 	 * Default constructor
@@ -64,7 +78,7 @@ public class XmlDataMarshallerImpl implements DataMarshaller {
 				if (cmd == null)
 					throw new DataStreamException("No schema defined for object of class " + obj.getClass().getName());
 				// write a single object
-				createXml(obj, cmd, true);
+				writeRootObject(obj, cmd);
 			}
 		} catch (Exception e) {
 			throw new RuntimeException(e);
@@ -90,7 +104,7 @@ public class XmlDataMarshallerImpl implements DataMarshaller {
 				// mount the list while there is object from the provider
 				while ((obj = provider.getObjectToSerialize(index)) != null) {
 					ClassMetaData meta = getClassMetadata(obj);
-					createXml(obj, meta, true);
+					writeRootObject(obj, meta);
 					index++;
 				}
 				xml.writeEndElement();
@@ -99,7 +113,7 @@ public class XmlDataMarshallerImpl implements DataMarshaller {
 				// serialize single object
 				Object obj = provider.getObjectToSerialize(0);
 				ClassMetaData cmd = getClassMetadata(obj);
-				createXml(obj, cmd, true);
+				writeRootObject(obj, cmd);
 			}
 			
 		} catch (Exception e) {
@@ -130,6 +144,12 @@ public class XmlDataMarshallerImpl implements DataMarshaller {
 		try {
 			if (xml != null)
 				finishMarshall();
+			depth = 0;
+			if (indexOutput != null) {
+				counter = new CountingOutputStream(out);
+				index = new DataStreamIndex(indexKey != null);
+				out = counter;
+			}
 			xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
 
 			xml.writeStartDocument();
@@ -152,12 +172,52 @@ public class XmlDataMarshallerImpl implements DataMarshaller {
 			ClassMetaData cmd = context.findClassMetaData(item);
 			if (cmd == null)
 				throw new IllegalArgumentException("Class not defined to be serialized: " + item.getClass().getName());
-			createXml(item, cmd, true);
+			writeRootObject(item, cmd);
 		}
 		xml.writeEndElement();
 	}
 
 
+	/**
+	 * Create the XML element of an object of the root object graph, including it
+	 * in the index, if an index output was declared
+	 * @param obj the object to write
+	 * @param cmd the class meta data of the object
+	 * @throws XMLStreamException
+	 */
+	protected void writeRootObject(Object obj, ClassMetaData cmd) throws XMLStreamException {
+		if (index != null) {
+			WritePlan plan = cmd.getWritePlan();
+			if (context.getCollectionMetaData() != null) {
+				// make sure the start tag of the collection is closed before counting the bytes
+				xml.writeCharacters("");
+			}
+			// the bytes are just written to the counter, which doesn't flush the output stream
+			xml.flush();
+			index.add(counter.getCount(), getIndexKey(obj, plan));
+		}
+		createXml(obj, cmd, true);
+	}
+
+	/**
+	 * Return the key of the object in the index, i.e, the value of its key attribute
+	 * @param obj the object
+	 * @param plan the write plan of the object graph
+	 * @return the key, or null if no key was declared or the object has no value for the key
+	 */
+	protected String getIndexKey(Object obj, WritePlan plan) {
+		if (indexKey == null) {
+			return null;
+		}
+		for (WritePlan.Entry entry: plan.getAttributes()) {
+			if (entry.getName().equals(indexKey)) {
+				Object value = entry.getValue(obj, null);
+				return value != null ? convertToString(entry.getProperty(), value) : null;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Create an XML element from an object
 	 * @param obj
@@ -167,78 +227,134 @@ public class XmlDataMarshallerImpl implements DataMarshaller {
 	 * @throws XMLStreamException 
 	 */
 	protected void createXml(Object obj, ClassMetaData cmd, boolean includeClassElement) throws XMLStreamException {
+		createXml(obj, cmd.getWritePlan(), includeClassElement);
+	}
+
+	/**
+	 * Create an XML element from an object, using the write plan of its graph
+	 * @param obj
+	 * @param plan instance of {@link WritePlan} of the object graph
+	 * @param includeClassElement
+	 * @throws XMLStreamException
+	 */
+	protected void createXml(Object obj, WritePlan plan, boolean includeClassElement) throws XMLStreamException {
 		if (includeClassElement)
-			xml.writeStartElement(cmd.getGraph().getName());
+			xml.writeStartElement(plan.getName());
 
-		List<PropertyMetaData> props = cmd.getEndPointProperties();
+		// read the nested properties once, sharing the intermediate objects
+		Object[] values = null;
+		if (plan.isComposed()) {
+			values = pushValueBuffer(plan.getEndpointCount());
+			plan.getClassMetaData().readComposedValues(obj, values);
+		}
 
 		// write attributes
-		for (PropertyMetaData prop: props) {
-			if ((!prop.isSerializationIgnored()) && (prop.isXmlAttribute())) {
-				Object value = prop.getValue(obj);
-
-                // value is different of null or include even null values?
-				if ((value != null) || (prop.isIncludeNullValues())) {
-					String text = convertToString(value);
-					if (text != null)
-						xml.writeAttribute(prop.getElementName(), text);
-				}
+		for (WritePlan.Entry entry: plan.getAttributes()) {
+			if ((entry.getMode() == WritePlan.WriteMode.PRIMITIVE) && (isPrimitiveWritable(entry.getProperty()))) {
+				xml.writeAttribute(entry.getName(), primitiveToString(entry.getProperty(), obj));
+				continue;
+			}
+
+			Object value = entry.getValue(obj, values);
+
+            // value is different of null or include even null values?
+			if ((value != null) || (entry.isIncludeNullValues())) {
+				String text = convertToString(entry.getProperty(), value);
+				if (text != null)
+					xml.writeAttribute(entry.getName(), text);
 			}
 		}
 
 		// write elements
-		for (PropertyMetaData prop: props) {
-			if ((!prop.isSerializationIgnored()) && (!prop.isXmlAttribute())) {
-				Object value = prop.getValue(obj);
-				if (value != null || prop.isIncludeNullValues()) {
-					// serialize it as an XML element
-					xml.writeStartElement(prop.getElementName());
-                    // just write content if there is any value, otherwise just close the tag indicating an empty value
-                    if (value != null) {
-                        if (prop.getCompactibleTypeMetaData() != null) {
-                            // serialize the object that this property points to
-                            // the property is of collection type ?
-                            if (prop.isCollection()) {
-                                // serialize all items of the collection
-                                Collection lst = (Collection)value;
-                                for (Object item: lst) {
-                                    createXml(item, prop.getCompactibleTypeMetaData(), true);
-                                }
-                            }
-                            else {
-                                // serialize the object pointed by the collection
-                                createXml(value, prop.getCompactibleTypeMetaData(), false);
-                            }
-                        }
-                        else {
-                            String text = convertToString(value);
-                            if (text != null)
-                                xml.writeCharacters(text);
+		for (WritePlan.Entry entry: plan.getElements()) {
+			PropertyMetaData prop = entry.getProperty();
+			// primitive values are written directly, without boxing
+			if ((entry.getMode() == WritePlan.WriteMode.PRIMITIVE) && (isPrimitiveWritable(prop))) {
+				xml.writeStartElement(entry.getName());
+				writePrimitiveValue(prop, obj);
+				xml.writeEndElement();
+				continue;
+			}
+
+			Object value = entry.getValue(obj, values);
+			if (value != null || entry.isIncludeNullValues()) {
+				// serialize it as an XML element
+				xml.writeStartElement(entry.getName());
+                // just write content if there is any value, otherwise just close the tag indicating an empty value
+                if (value != null) {
+                    switch (entry.getMode()) {
+                    case COLLECTION:
+                        // serialize all items of the collection
+                        WritePlan itemPlan = entry.getTypePlan();
+                        for (Object item: (Collection)value) {
+                            createXml(item, itemPlan, true);
                         }
+                        break;
+                    case OBJECT:
+                        // serialize the object pointed by the property
+                        createXml(value, entry.getTypePlan(), false);
+                        break;
+                    default:
+                        String text = convertToString(prop, value);
+                        if (text != null)
+                            xml.writeCharacters(text);
                     }
-					xml.writeEndElement();
-				}
+                }
+				xml.writeEndElement();
 			}
 		}
 
-		handleCustomProperties(obj, cmd);
+		if (values != null) {
+			popValueBuffer(values);
+		}
+
+		handleCustomProperties(obj, plan.getCustomPropertiesNode());
 		
 		if (includeClassElement)
 			xml.writeEndElement();
 	}
 
 
+	/**
+	 * Return a buffer to store the values of the nested properties of the object
+	 * being written in the current depth. Buffers are reused between objects
+	 * @param size the minimum size of the buffer
+	 * @return array of objects
+	 */
+	private Object[] pushValueBuffer(int size) {
+		Object[] buf = depth < valueBuffers.size() ? valueBuffers.get(depth) : null;
+		if ((buf == null) || (buf.length < size)) {
+			buf = new Object[size];
+			if (depth < valueBuffers.size()) {
+				valueBuffers.set(depth, buf);
+			}
+			else {
+				valueBuffers.add(buf);
+			}
+		}
+		depth++;
+		return buf;
+	}
+
+	/**
+	 * Release the buffer of the current depth, clearing its values
+	 * @param buf the buffer returned by {@link #pushValueBuffer(int)}
+	 */
+	private void popValueBuffer(Object[] buf) {
+		Arrays.fill(buf, null);
+		depth--;
+	}
+
 	/**
 	 * Handle possible custom properties defined for the given object. In order to include custom
 	 * properties, it's necessary to define the node name (in the XML schema, as customPropertiesNode)
 	 * and implement the interface {@link CustomPropertiesReader} 
 	 * @param obj
-	 * @param cmd
+	 * @param node the name of the node of custom properties declared in the graph
 	 * @throws XMLStreamException
 	 */
-	protected void handleCustomProperties(Object obj, ClassMetaData cmd) throws XMLStreamException {
+	protected void handleCustomProperties(Object obj, String node) throws XMLStreamException {
 		// any custom node was defined for this object graph?
-		String node = cmd.getGraph().getCustomPropertiesNode();
 		if (node == null) {
 			return;
 		}
@@ -304,11 +420,25 @@ public class XmlDataMarshallerImpl implements DataMarshaller {
 			xml.writeEndDocument();
 			xml.flush();
 			xml = null;
+			if (index != null) {
+				counter.flushOutput();
+				index.write(indexOutput);
+				index = null;
+				counter = null;
+			}
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 	}
 	
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void setIndexOutput(OutputStream output, String keyAttribute) {
+		this.indexOutput = output;
+		this.indexKey = keyAttribute;
+	}
+
 	/**
 	 * Convert an object (usually a primitive type) to string
 	 * @param value
@@ -322,6 +452,89 @@ public class XmlDataMarshallerImpl implements DataMarshaller {
 		return conv.convertToString(value);
 	}
 
+	/**
+	 * Convert the value of a property to string. If no specific converter is registered
+	 * for the value type, the value type resolved for the property is used, avoiding to
+	 * check the value class against every type supported
+	 * @param prop the property the value belongs to
+	 * @param value the value to convert
+	 * @return String value
+	 */
+	protected String convertToString(PropertyMetaData prop, Object value) {
+		if (value == null) {
+			return "";
+		}
+		DataConverter conv = context.findConverter(value.getClass());
+		ValueType type = prop.getValueType();
+		if ((conv != context.getDefaultConverter()) || (type == ValueType.UNSUPPORTED)) {
+			return conv.convertToString(value);
+		}
+		return context.getDefaultConverter().convertToString(value, type);
+	}
+
+	/**
+	 * Check if the property value can be written using the primitive accessors of the
+	 * property, i.e, it's a primitive type with no specific converter registered
+	 * @param prop the property to check
+	 * @return true if the value can be written by {@link #writePrimitiveValue(PropertyMetaData, Object)}
+	 */
+	protected boolean isPrimitiveWritable(PropertyMetaData prop) {
+		if (!prop.isPrimitiveValue()) {
+			return false;
+		}
+		Class type = prop.getValueType().getWrapperType();
+		return context.findConverter(type) == context.getDefaultConverter();
+	}
+
+	/**
+	 * Write the content of a primitive property directly from the object
+	 * to the XML, without boxing the value. Integer and char values are also
+	 * written with no intermediate string
+	 * @param prop the property to write
+	 * @param obj the object to read the property value from
+	 * @throws XMLStreamException
+	 */
+	protected void writePrimitiveValue(PropertyMetaData prop, Object obj) throws XMLStreamException {
+		FieldAccess fa = prop.getFieldAccess();
+		switch (prop.getValueType()) {
+		case INT:
+		case LONG:
+			int len = context.getDefaultConverter().convertToChars(fa.getLong(obj), charBuffer);
+			xml.writeCharacters(charBuffer, 0, len);
+			break;
+		case CHAR:
+			charBuffer[0] = fa.getChar(obj);
+			xml.writeCharacters(charBuffer, 0, 1);
+			break;
+		default:
+			xml.writeCharacters(primitiveToString(prop, obj));
+		}
+	}
+
+	/**
+	 * Convert the value of a primitive property to string, reading it from the object
+	 * without boxing. Used for attributes, whose values are always written as strings,
+	 * and for the types with no char conversion
+	 * @param prop the property to convert
+	 * @param obj the object to read the property value from
+	 * @return String value
+	 */
+	protected String primitiveToString(PropertyMetaData prop, Object obj) {
+		FieldAccess fa = prop.getFieldAccess();
+		switch (prop.getValueType()) {
+		case BOOLEAN:
+			return context.getDefaultConverter().convertToString(fa.getBoolean(obj));
+		case CHAR:
+			return String.valueOf(fa.getChar(obj));
+		case FLOAT:
+			return Float.toString(fa.getFloat(obj));
+		case DOUBLE:
+			return Double.toString(fa.getDouble(obj));
+		default:
+			return Long.toString(fa.getLong(obj));
+		}
+	}
+
 	/** {@inheritDoc}
 	 */
 	@Override
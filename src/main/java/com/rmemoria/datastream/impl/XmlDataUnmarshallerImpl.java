@@ -3,15 +3,18 @@
  */
 package com.rmemoria.datastream.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
@@ -22,17 +25,20 @@ import javax.xml.parsers.SAXParserFactory;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 import com.rmemoria.datastream.CustomPropertiesWriter;
 import com.rmemoria.datastream.DataConverter;
+import com.rmemoria.datastream.DataStreamCheckpoint;
 import com.rmemoria.datastream.DataStreamException;
+import com.rmemoria.datastream.DataStreamIndex;
+import com.rmemoria.datastream.DataStreamLocation;
 import com.rmemoria.datastream.DataUnmarshaller;
 import com.rmemoria.datastream.ObjectConsumer;
-import com.rmemoria.datastream.jaxb.ObjectGraph;
+import com.rmemoria.datastream.ObjectFilter;
 import com.rmemoria.datastream.jaxb.Property;
-import com.rmemoria.datastream.jaxb.PropertyUse;
 
 /**
  * Unmarshall an object from its XML representation to its object (or several objects, if it's
@@ -53,20 +59,69 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	 */
 	public enum NodeType { ROOT, CLASS, PROPERTY, CUSTOM_PROPERTIES; };
 
+	// states of the unmarshaller, in the same order of the node types
+	private static final int STATE_ROOT = 0;
+	private static final int STATE_CLASS = 1;
+	private static final int STATE_PROPERTY = 2;
+	private static final int STATE_CUSTOM_PROPERTIES = 3;
+	private static final NodeType[] NODE_TYPES = NodeType.values();
+
+	private static SAXParserFactory parserFactory;
 
 	private StreamContextImpl context;
+	// the parser and its handler, reused between documents
+	private SAXParser parser;
+	private DefaultHandler handler;
 	private CollectionMetaData currentCollection;
 	private Collection results;
 	private ObjectConsumer consumer;
-	// indicate the current node selection
-	private NodeSelection node;
+	// the state of the current node, one of the STATE_* constants
+	private int state = STATE_ROOT;
+	// stack of nodes being read. Each level is either a class or a property
+	private ClassMetaData[] nodeClasses = new ClassMetaData[16];
+	private PropertyMetaData[] nodeProperties = new PropertyMetaData[16];
+	private int nodeDepth;
 	private List<CustomPropertiesWriter> propWriters;
 	
 	private Deque<ObjectValues> objects = new ArrayDeque<ObjectValues>();
+	// instances of ObjectValues reused by depth of the object in the document
+	private List<ObjectValues> valuesPool = new ArrayList<ObjectValues>();
 	private Map<String, String> customProperties;
 	private String customPropName;
 
     private boolean saxCharacterCalled;
+	// text of the current element, accumulated until the next element starts or ends
+	private char[] text = new char[256];
+	private int textLength;
+	// if true, elements not declared in the schema and ignored properties are skipped
+	private boolean tolerant;
+	// depth of the element being skipped, or 0 if no element is being skipped
+	private int skipDepth;
+	// number of root objects to skip, and maximum number of root objects to read
+	private int offset;
+	private int limit;
+	// number of root elements found and root objects read in the document
+	private int rootElements;
+	private int rootObjects;
+	private boolean stopped;
+	private ObjectFilter filter;
+	private AttributesMap filterAttributes;
+	// position in the stream of the end of the collection start tag and of the last root object read
+	private long collectionStart;
+	private long lastObjectEnd;
+	// the checkpoint the current document was resumed from
+	private DataStreamCheckpoint resumeCheckpoint;
+	// when reading from a position of a file, the length of the header read before the position,
+	// the position and the number of objects before it, used to report positions in the file
+	private long originHeaderLength;
+	private long originOffset;
+	private long originObjectCount;
+	// if true, the origin and the checkpoint were declared for the next document to be read
+	private boolean originDeclared;
+	// names of the elements from the root element to the current element
+	private String[] elementPath = new String[16];
+	private int pathDepth;
+	private Locator locator;
 
 	
 	/**
@@ -83,6 +138,8 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	public Object unmarshall(InputStream xmlstream) {
 		// this collection will receive the objects
 		results = new ArrayList();
+		consumer = null;
+		resetParseState();
 		
 		startParse(xmlstream);
 
@@ -101,28 +158,355 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	@Override
 	public void unmarshall(InputStream stream, ObjectConsumer consumer) {
 		this.consumer = consumer;
+		results = null;
+		resetParseState();
 		startParse(stream);
 	}
 	
 	
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Object unmarshall(File file) {
+		InputStream in = openFile(file);
+		try {
+			return unmarshall(in);
+		} finally {
+			closeFile(in);
+		}
+	}
+
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void unmarshall(File file, ObjectConsumer consumer) {
+		InputStream in = openFile(file);
+		try {
+			unmarshall(in, consumer);
+		} finally {
+			closeFile(in);
+		}
+	}
+
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void unmarshall(File file, DataStreamIndex index, int first, ObjectConsumer consumer) {
+		if (first == index.size()) {
+			return;
+		}
+		InputStream in = openFile(file);
+		try {
+			InputStream stream = openStreamAt(in, index.getOffset(0), index.getOffset(first));
+			setStreamOrigin(index.getOffset(0), index.getOffset(first), first, null);
+			unmarshall(stream, consumer);
+		} finally {
+			closeFile(in);
+		}
+	}
+
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Object unmarshall(File file, DataStreamIndex index, String key) {
+		int pos = index.indexOf(key);
+		if (pos < 0) {
+			return null;
+		}
+		InputStream in = openFile(file);
+		// the object is found by its position, so offset and filter don't apply
+		int oldLimit = limit;
+		int oldOffset = offset;
+		ObjectFilter oldFilter = filter;
+		limit = 1;
+		offset = 0;
+		filter = null;
+		try {
+			InputStream stream = openStreamAt(in, index.getOffset(0), index.getOffset(pos));
+			setStreamOrigin(index.getOffset(0), index.getOffset(pos), pos, null);
+			Object res = unmarshall(stream);
+			if (res instanceof List) {
+				List lst = (List)res;
+				return lst.isEmpty() ? null : lst.get(0);
+			}
+			return res;
+		} finally {
+			limit = oldLimit;
+			offset = oldOffset;
+			filter = oldFilter;
+			closeFile(in);
+		}
+	}
+
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void unmarshall(File file, DataStreamCheckpoint checkpoint, ObjectConsumer consumer) {
+		InputStream in = openFile(file);
+		// the objects before the checkpoint were already skipped by the offset
+		int oldOffset = offset;
+		offset = 0;
+		try {
+			InputStream stream = openStreamAt(in, checkpoint.getHeaderLength(), checkpoint.getOffset());
+			setStreamOrigin(checkpoint.getHeaderLength(), checkpoint.getOffset(), checkpoint.getObjectCount(),
+					checkpoint);
+			unmarshall(stream, consumer);
+		} finally {
+			offset = oldOffset;
+			closeFile(in);
+		}
+	}
+
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public DataStreamCheckpoint getCheckpoint() {
+		// if no object was read since the document was resumed, the checkpoint is the same
+		if (rootObjects == 0) {
+			return resumeCheckpoint;
+		}
+		if ((collectionStart < 0) || (lastObjectEnd < 0)) {
+			return null;
+		}
+		return new DataStreamCheckpoint(toFilePosition(collectionStart), toFilePosition(lastObjectEnd),
+				originObjectCount + rootObjects);
+	}
+
+
+	/**
+	 * Declare the origin of the next document to be read, when it's read from a position of a file.
+	 * The origin is kept after the document is read, even if the reading fails, so the checkpoint
+	 * is still available, and it's cleared when another document is read
+	 * @param headerLength the length of the header of the document, read before the position
+	 * @param offset the position in the file where the reading continues after the header
+	 * @param objectCount the number of objects in the file before the position
+	 * @param checkpoint the checkpoint the document is resumed from, or null
+	 */
+	private void setStreamOrigin(long headerLength, long offset, long objectCount, DataStreamCheckpoint checkpoint) {
+		originHeaderLength = headerLength;
+		originOffset = offset;
+		originObjectCount = objectCount;
+		resumeCheckpoint = checkpoint;
+		originDeclared = true;
+	}
+
+
 	/**
-	 * Start the parse of the XML input stream
+	 * Convert a position in the stream being read to the position in the file. When the
+	 * document is read from a position of a file, the stream contains the header of the
+	 * document followed by the content of the file after the position
+	 * @param pos the position in the stream
+	 * @return the position in the file, or -1 if the position is not available
+	 */
+	private long toFilePosition(long pos) {
+		if (pos <= originHeaderLength) {
+			return pos;
+		}
+		return pos - originHeaderLength + originOffset;
+	}
+
+
+	/**
+	 * Return the location in the document of the element being read. The location is
+	 * a copy of the current path of elements, and it's just rendered as text if the
+	 * message of the exception is read
+	 * @return instance of {@link DataStreamLocation}
+	 */
+	protected DataStreamLocation getLocation() {
+		String[] path = new String[pathDepth];
+		System.arraycopy(elementPath, 0, path, 0, pathDepth);
+		return new DataStreamLocation(path, getLineNumber(), getColumnNumber(), toFilePosition(getStreamPosition()));
+	}
+
+
+	/**
+	 * Return the line number of the element being read
+	 * @return the line number, or -1 if not available
+	 */
+	protected int getLineNumber() {
+		return locator != null ? locator.getLineNumber() : -1;
+	}
+
+
+	/**
+	 * Return the column number of the element being read
+	 * @return the column number, or -1 if not available
+	 */
+	protected int getColumnNumber() {
+		return locator != null ? locator.getColumnNumber() : -1;
+	}
+
+
+	/**
+	 * Return the position, in bytes, of the reader in the input stream, used to create checkpoints
+	 * @return the position, or -1 if the reader doesn't report its position
+	 */
+	protected long getStreamPosition() {
+		return -1;
+	}
+
+
+	/**
+	 * Prepare the input stream to read the objects from the given position in the document. The
+	 * content of the document before the first object, i.e, the XML declaration and the start
+	 * tag of the collection, is read first, and then the stream moves directly to the position
+	 * of the object. Since the rest of the document ends with the end tag of the collection, the
+	 * resulting document is complete
+	 * @param in the input stream of the file
+	 * @param headerLength the number of bytes of the document before the first object
+	 * @param offset the position of the first object to read
+	 * @return instance of {@link InputStream}
+	 */
+	protected InputStream openStreamAt(InputStream in, long headerLength, long offset) {
+		byte[] header = new byte[(int)headerLength];
+		try {
+			int count = 0;
+			while (count < header.length) {
+				int n = in.read(header, count, header.length - count);
+				if (n < 0) {
+					throw new DataStreamException("Unexpected end of document reading position " + offset);
+				}
+				count += n;
+			}
+			long remaining = offset - header.length;
+			while (remaining > 0) {
+				long n = in.skip(remaining);
+				if (n <= 0) {
+					throw new DataStreamException("Unexpected end of document reading position " + offset);
+				}
+				remaining -= n;
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return new SequenceInputStream(new ByteArrayInputStream(header), in);
+	}
+
+
+	/**
+	 * Open the given file to be read by the unmarshaller
+	 * @param file the file to read
+	 * @return instance of {@link InputStream}
+	 */
+	protected InputStream openFile(File file) {
+		try {
+			return new MappedFileInputStream(file);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+
+	/**
+	 * Close the file opened by {@link #openFile(File)}. It's called in a finally block, so
+	 * errors are ignored, not hiding an exception raised while reading. No data is lost,
+	 * since the file was just read
+	 * @param in the input stream of the file
+	 */
+	protected void closeFile(InputStream in) {
+		try {
+			in.close();
+		} catch (IOException e) {
+			// nothing to do, the file was opened just for reading
+		}
+	}
+
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Iterator<Object> iterator(InputStream stream) {
+		// SAX can't be paused, so objects are read by a pull unmarshaller
+		XmlPullUnmarshallerImpl um = new XmlPullUnmarshallerImpl(context);
+		copySettings(um);
+		return new ObjectIterator(um, stream);
+	}
+	
+	
+	/**
+	 * Start the parse of the XML input stream. The SAX parser is created once
+	 * and reused in the next documents read by this unmarshaller. The bytes of the document
+	 * are given to the parser, which detects the encoding by the byte order mark and
+	 * the XML declaration, and decodes UTF-8 and ASCII documents with its own readers
 	 * @param xmlstream
 	 */
 	protected void startParse(InputStream xmlstream) {
-		// create SAX parser and its default handler for element reading
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		SAXParser parser;
+		SAXParser parser = getParser();
 		try {
-			parser = factory.newSAXParser();
-			
-			DefaultHandler handler = new DefaultHandler() {
+			InputSource is = new InputSource(xmlstream);
+			parser.parse(is,  getHandler());
+
+		} catch (StopParsingException e) {
+			// reading was stopped before the end of the document
+		} catch (SAXException e) {
+			throw new RuntimeException(e);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			locator = null;
+			parser.reset();
+		}
+	}
+
+	/**
+	 * Return the SAX parser of the unmarshaller, creating it in the first call
+	 * @return instance of {@link SAXParser}
+	 */
+	protected SAXParser getParser() {
+		if (parser == null) {
+			SAXParserFactory factory = getParserFactory();
+			// the factory is shared between unmarshallers, and it's not thread safe
+			synchronized (factory) {
+				try {
+					parser = factory.newSAXParser();
+				} catch (SAXException e) {
+					throw new RuntimeException(e);
+				} catch (ParserConfigurationException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+		return parser;
+	}
+
+	/**
+	 * Return the factory of SAX parsers, shared by all unmarshallers. The factory is
+	 * created once, since its creation requires a lookup of the available implementations
+	 * @return instance of {@link SAXParserFactory}
+	 */
+	protected static synchronized SAXParserFactory getParserFactory() {
+		if (parserFactory == null) {
+			parserFactory = SAXParserFactory.newInstance();
+		}
+		return parserFactory;
+	}
+
+	/**
+	 * Return the SAX handler that forwards the events of the parser to the unmarshaller
+	 * @return instance of {@link DefaultHandler}
+	 */
+	protected DefaultHandler getHandler() {
+		if (handler == null) {
+			handler = new DefaultHandler() {
+				/** {@inheritDoc}
+				 */
+				@Override
+				public void setDocumentLocator(Locator loc) {
+					locator = loc;
+				}
+
 				/** {@inheritDoc}
 				 */
 				@Override
 				public void startElement(String uri, String localName, String qName,
 						Attributes attributes) throws SAXException {
 					saxStartElement(qName, attributes);
+					checkStopped();
 				}
 
 				/** {@inheritDoc}
@@ -131,6 +515,7 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 				public void endElement(String uri, String localName, String qName)
 						throws SAXException {
 					saxEndElement(qName);
+					checkStopped();
 				}
 
 				/** {@inheritDoc}
@@ -138,21 +523,29 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 				@Override
 				public void characters(char[] ch, int start, int length)
 						throws SAXException {
-					saxCharacters(new String(ch, start, length));
+					saxCharacters(ch, start, length);
 				}
 			};
+		}
+		return handler;
+	}
 
-            InputSource is = new InputSource(new InputStreamReader(xmlstream, "UTF-8"));
-			parser.parse(is,  handler);
-
-		} catch (SAXException e) {
-			throw new RuntimeException(e);
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		} catch (ParserConfigurationException e) {
-			throw new RuntimeException(e);
+	/**
+	 * Interrupt the SAX parser if reading was stopped
+	 * @throws StopParsingException
+	 */
+	private void checkStopped() throws StopParsingException {
+		if (stopped) {
+			throw new StopParsingException();
 		}
 	}
+
+	/**
+	 * Exception thrown to interrupt the SAX parser when reading is stopped
+	 */
+	private static class StopParsingException extends SAXException {
+		private static final long serialVersionUID = 1L;
+	}
 	
 	/**
 	 * Notification of SAX about the starting of an element
@@ -160,21 +553,31 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	 * @param attributes
 	 */
 	protected void saxStartElement(String name, Attributes attributes) {
-		// is the first node?
-		NodeType nodeType = getNodeType();
+		if (skipDepth > 0) {
+			skipDepth++;
+			return;
+		}
+		// text before the element belongs to the parent element
+		handleText();
+		if (pathDepth == elementPath.length) {
+			String[] aux = new String[pathDepth * 2];
+			System.arraycopy(elementPath, 0, aux, 0, pathDepth);
+			elementPath = aux;
+		}
+		elementPath[pathDepth++] = name;
         saxCharacterCalled = false;
 
-		switch (nodeType) {
-		case ROOT:
+		switch (state) {
+		case STATE_ROOT:
 			startRootNode(name, attributes);
 			break;
-		case CLASS: // it means that the current selection is a class, so the new element being read is a property
+		case STATE_CLASS: // it means that the current selection is a class, so the new element being read is a property
 			startPropertyNode(name, attributes);
 			break;
-		case PROPERTY:
+		case STATE_PROPERTY:
 			startClassNode(name, attributes);
 			break;
-		case CUSTOM_PROPERTIES:
+		case STATE_CUSTOM_PROPERTIES:
 			startCustomPropertiesNode(name, attributes);
 		}
 	}
@@ -203,14 +606,28 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 			// if the node name is not the same as expected, raise an error
 			String collname = currentCollection.getObjectCollection().getName();
 			if (!collname.equals(name))
-				throw new DataStreamException(getNodeHistory() +  ": Expected element '" + collname + "' but found '" + name + "'");
+				throw new DataStreamException(getLocation(), "Expected element '" + collname + "' but found '" + name + "'");
+			collectionStart = getStreamPosition();
 		}
 		else {
 			// initialize the node for the first selection, which must be a class
 			ClassMetaData cmd = context.findClassByElement(name);
+			if ((cmd == null) && (tolerant) && (currentCollection != null)) {
+				skipElement();
+				return;
+			}
 			if (cmd == null)
-				throw new DataStreamException(getNodeHistory() + ": No class mapped for element " + name);
-			node = new NodeSelection(null, cmd);
+				throw new DataStreamException(getLocation(), "No class mapped for element " + name);
+			// objects rejected by the filter or before the offset are skipped with no object being created
+			if ((filter != null) && (!acceptRootNode(cmd, attributes))) {
+				skipElement();
+				return;
+			}
+			if (rootElements++ < offset) {
+				skipElement();
+				return;
+			}
+			pushClassNode(cmd);
 			startClass(attributes);
 			if (consumer != null)
 				consumer.startObjectReading(cmd.getGraphClass());
@@ -218,6 +635,24 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	}
 	
 	
+	/**
+	 * Check if the object of a root element is accepted by the filter
+	 * @param cmd the class of the object
+	 * @param attributes the attributes declared in the element
+	 * @return true if the object must be read
+	 */
+	protected boolean acceptRootNode(ClassMetaData cmd, Attributes attributes) {
+		if (filterAttributes == null) {
+			filterAttributes = new AttributesMap();
+		}
+		filterAttributes.setAttributes(attributes);
+		try {
+			return filter.accept(cmd.getGraphClass(), filterAttributes);
+		} finally {
+			filterAttributes.setAttributes(null);
+		}
+	}
+
 	/**
 	 * Called when reading an XML node which is an object structure
 	 * @param name is the XML node name
@@ -227,12 +662,13 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 		// is a property node ?
 		// it's an entity pointed in a property
 		// if there is no type defined in the property, so there is an error
-		ClassMetaData cmd = node.getPropertyMetaData().getCompactibleTypeMetaData();
+		PropertyMetaData prop = nodeProperties[nodeDepth - 1];
+		ClassMetaData cmd = prop.getCompactibleTypeMetaData();
 		if (cmd == null)
-			throw new DataStreamException(node.getPropertyMetaData().getClassMetaData(), 
-				node.getPropertyMetaData(), getNodeHistory() + ": " +  
-				"A new element was found in property but no graph defined for property " + node.getPropertyMetaData() + ": element " + name);
-		node = new NodeSelection(node, cmd);
+			throw new DataStreamException(prop.getClassMetaData(), 
+				prop, getLocation(),
+				"A new element was found in property but no graph defined for property " + prop + ": element " + name);
+		pushClassNode(cmd);
 
 		startClass(attributes);
 	}
@@ -244,21 +680,27 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	 * @param attributes is the list of attributes, if available, declared in the XML node
 	 */
 	protected void startPropertyNode(String name, Attributes attributes) {
+		ClassMetaData cmd = nodeClasses[nodeDepth - 1];
 		// is this node a custom property node?
-		if (name.equals(node.getClassMetaData().getGraph().getCustomPropertiesNode())) {
+		if (name.equals(cmd.getGraph().getCustomPropertiesNode())) {
 			customProperties = new HashMap<String, String>();
+			state = STATE_CUSTOM_PROPERTIES;
 		}
 		else {
 			// it's another property being handled
-			PropertyMetaData prop = node.getClassMetaData().findPropertyByElementName(name);
+			PropertyMetaData prop = cmd.findPropertyByElementName(name);
+			if ((tolerant) && ((prop == null) || (prop.isSerializationIgnored()))) {
+				skipElement();
+				return;
+			}
 			if (prop == null)
-				throw new DataStreamException(node.getClassMetaData(), null, getNodeHistory() + ": Invalid element " + name + 
-						" in node " + node.getClassMetaData().getGraph().getName());
+				throw new DataStreamException(cmd, null, getLocation(), "Invalid element " + name + 
+						" in node " + cmd.getGraph().getName());
 
-			node = new NodeSelection(node, prop);
+			pushPropertyNode(prop);
 			// is an one-to-one relationship between objects ?
 			if ((prop.getCompactibleTypeMetaData() != null) && (!prop.isCollection())) {
-				node = new NodeSelection(node, prop.getCompactibleTypeMetaData());
+				pushClassNode(prop.getCompactibleTypeMetaData());
 				startClass(attributes);
 			}
 		}
@@ -269,8 +711,8 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	 * @param attributes is the list of attributes declared in the XML document node
 	 */
 	protected void startClass(Attributes attributes) {
-		ClassMetaData currentClass = node.getClassMetaData();
-		ObjectValues vals = new ObjectValues(currentClass);
+		ClassMetaData currentClass = nodeClasses[nodeDepth - 1];
+		ObjectValues vals = obtainObjectValues(currentClass);
 		// add in the stack
 		objects.push(vals);
 		
@@ -279,10 +721,13 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 			for (int i = 0; i < attributes.getLength(); i++) {
 				String elemName = attributes.getQName(i);
 				String propvalue = attributes.getValue(i);
-				PropertyMetaData prop = currentClass.findPropertyByElementName(elemName);
+				PropertyMetaData prop = currentClass.findPropertyByAttributeName(elemName);
+				if ((tolerant) && ((prop == null) || (prop.isSerializationIgnored()))) {
+					continue;
+				}
 				// if the attribute is not a property, raise an exception
 				if (prop == null)
-					throw new DataStreamException(currentClass, null, getNodeHistory() +  ": Invalid element " + elemName + 
+					throw new DataStreamException(currentClass, null, getLocation(), "Invalid element " + elemName + 
 							" in node " + currentClass.getGraph().getName());
 
                 Object val = convertValueFromString(prop, propvalue);
@@ -290,12 +735,31 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 //				DataConverter conv = context.findConverter(type);
 //				Object val = conv.convertFromString(propvalue, type);
 				
-				vals.addValue(prop.getPath(), val);
+				vals.addValue(prop, val);
 //				vals.getValues().put(prop, val);
 			}
 		}
 	}
 
+	/**
+	 * Return an instance of {@link ObjectValues} to store the values of a new object. Instances
+	 * are reused by the depth of the object, since an object is created before a new object in
+	 * the same depth is read
+	 * @param cmd the class of the object
+	 * @return instance of {@link ObjectValues}
+	 */
+	protected ObjectValues obtainObjectValues(ClassMetaData cmd) {
+		int depth = objects.size();
+		if (depth < valuesPool.size()) {
+			ObjectValues vals = valuesPool.get(depth);
+			vals.reset(cmd);
+			return vals;
+		}
+		ObjectValues vals = new ObjectValues(cmd);
+		valuesPool.add(vals);
+		return vals;
+	}
+
 
     /**
      * Convert a value from string to the original type according to the given property meta data
@@ -313,32 +777,60 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
         else {
             Class type = prop.getConvertionType();
             DataConverter conv = context.findConverter(type);
+            if (conv == context.getDefaultConverter()) {
+                return context.getDefaultConverter().convertFromString(value, type, prop.getValueType());
+            }
             return conv.convertFromString(value, type);
         }
     }
 
+
+    /**
+     * Convert a text, given as a range of chars, to the original type according to the given property meta data
+     * @param prop
+     * @param buf the buffer containing the text
+     * @param start the position of the first char in the buffer
+     * @param length the number of chars
+     * @return the original value
+     */
+    protected Object convertValueFromChars(PropertyMetaData prop, char[] buf, int start, int length) {
+        Class type = prop.getConvertionType();
+        DataConverter conv = context.findConverter(type);
+        if (conv == context.getDefaultConverter()) {
+            return context.getDefaultConverter().convertFromChars(buf, start, length, type, prop.getValueType());
+        }
+        return conv.convertFromString(new String(buf, start, length), type);
+    }
+
 		
 	/**
 	 * Called by SAX when it ends the reading of an XML element
 	 * @param name is the name of the XML element
 	 */
 	protected void saxEndElement(String name) {
-		switch (getNodeType()) {
-		case ROOT:
+		if (skipDepth > 0) {
+			skipDepth--;
+			// the element being skipped ended
+			if (skipDepth == 0) {
+				pathDepth--;
+			}
 			return;
-		
-		case PROPERTY:
+		}
+		handleText();
+		switch (state) {
+		case STATE_PROPERTY:
 			endPropertyNode(name);
 			break;
 		
-		case CLASS:
+		case STATE_CLASS:
 			endClassNode(name);
 			break;
 		
-		case CUSTOM_PROPERTIES:
+		case STATE_CUSTOM_PROPERTIES:
 			endCustomPropertiesNode(name);
 			break;
 		}
+		pathDepth--;
 	}
 
 	
@@ -351,7 +843,7 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
             handleContentProperty(null);
         }
 		// end property tag
-		node = node.getParent();
+		popNode();
 	}
 	
 	
@@ -361,13 +853,13 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	 */
 	protected void endClassNode(String nodeName) {
 		// end class tag
-		node = node.getParent();
+		popNode();
 
 		ObjectValues vals = objects.pop();
 
         Object obj;
         // if there is no property, so the object is null
-        if (vals.getProperties().size() != 0) {
+        if (!vals.isEmpty()) {
             checkRequiredProperties(vals);
 
             obj = vals.createObject(context);
@@ -382,18 +874,18 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 		
 
 		// is parent node a property ?
-		if ((node != null) && (node.isPropertySelection())) {
+		if (state == STATE_PROPERTY) {
 			// take the parent object values
 			ObjectValues parent = objects.pop();
-			PropertyMetaData prop = node.getPropertyMetaData();
+			PropertyMetaData prop = nodeProperties[nodeDepth - 1];
 			// parent property is a collection ?
 			if (prop.isCollection()) {
 				// get the collection from values
 
-				Collection lst = (Collection)parent.getValue(prop.getPath());
+				Collection lst = (Collection)parent.getValue(prop);
 				if (lst == null) {
 					lst = new HashSet();
-					parent.addValue(prop.getPath(), lst);
+					parent.addValue(prop, lst);
 				}
 
                 if (obj != null) {
@@ -401,18 +893,85 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
                 }
 			}
 			else {
-				parent.addValue(prop.getPath(), obj);
+				parent.addValue(prop, obj);
 				// because it's a one to one entity relationship, it moves from the current class to the parent class
-				node = node.getParent();
+				popNode();
 			}
 			objects.push(parent);
 		}
 		else {
-			// new object is created
-			if (consumer != null)
-				 consumer.onNewObject(obj);
-			else results.add(obj);
+			// the object is in the checkpoint while the consumer receives it, but not if the consumer fails
+			long prevObjectEnd = lastObjectEnd;
+			lastObjectEnd = getStreamPosition();
+			rootObjects++;
+			boolean consumed = false;
+			try {
+				onRootObject(obj);
+				consumed = true;
+			} finally {
+				if (!consumed) {
+					lastObjectEnd = prevObjectEnd;
+					rootObjects--;
+				}
+			}
+			if ((limit > 0) && (rootObjects >= limit)) {
+				stopped = true;
+			}
+		}
+	}
+
+	/**
+	 * Called when a new object of the root graph (or of the collection declared in
+	 * the root) is read from the document
+	 * @param obj the object read, or null if the object has no value
+	 */
+	protected void onRootObject(Object obj) {
+		// new object is created
+		if (consumer != null)
+			 consumer.onNewObject(obj);
+		else results.add(obj);
+	}
+
+	/**
+	 * Clear the state of the document being read, preparing the unmarshaller
+	 * to read a new document
+	 */
+	protected void resetParseState() {
+		state = STATE_ROOT;
+		nodeDepth = 0;
+		currentCollection = null;
+		objects.clear();
+		customProperties = null;
+		customPropName = null;
+		saxCharacterCalled = false;
+		textLength = 0;
+		skipDepth = 0;
+		rootElements = 0;
+		rootObjects = 0;
+		stopped = false;
+		collectionStart = -1;
+		lastObjectEnd = -1;
+		pathDepth = 0;
+		if (!originDeclared) {
+			setStreamOrigin(0, 0, 0, null);
 		}
+		originDeclared = false;
+	}
+
+	/**
+	 * Start skipping the current element. The element and all its content are ignored
+	 * until the element ends
+	 */
+	protected void skipElement() {
+		skipDepth = 1;
+	}
+
+	/**
+	 * Return true if the current element is being skipped
+	 * @return boolean value
+	 */
+	protected boolean isSkippingElement() {
+		return skipDepth > 0;
 	}
 
 	
@@ -445,6 +1004,7 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 			ObjectValues objvals = objects.getLast();
 			objvals.setCustomProperties(customProperties);
 			customProperties = null;
+			state = STATE_CLASS;
 		}
 	}
 	
@@ -453,15 +1013,13 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	 * @param vals
 	 */
 	private void checkRequiredProperties(ObjectValues vals) {
-		ObjectGraph graph = vals.getClassMetaData().getGraph();
-		for (Property prop: graph.getProperty()) {
-			if (prop.getUse() == PropertyUse.REQUIRED) {
-				Object val = vals.getValue(prop.getName());
-				if (val == null) {
-                    String pname = prop.getElementName() != null? prop.getElementName(): prop.getName();
-					String s = "Property '" + vals.getClassMetaData().getGraph().getName() + "."  + pname + "' is required";
-					throw new DataStreamException(getNodeHistory() + ": " +  s);
-				}
+		for (PropertyMetaData pmd: vals.getClassMetaData().getRequiredProperties()) {
+			Object val = vals.getValue(pmd);
+			if (val == null) {
+				Property prop = pmd.getProperty();
+                String pname = prop.getElementName() != null? prop.getElementName(): prop.getName();
+				String s = "Property '" + vals.getClassMetaData().getGraph().getName() + "."  + pname + "' is required";
+				throw new DataStreamException(getLocation(), s);
 			}
 		}
 	}
@@ -469,33 +1027,75 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 
 	
 	/**
-	 * Called by SAX when reading the content of an XML element
+	 * Called by SAX when reading the content of an XML element. The content may be
+	 * split in several calls, so it's accumulated until the next element starts or ends
+	 * @param ch the buffer containing the chars
+	 * @param start the position of the first char in the buffer
+	 * @param length the number of chars
+	 */
+	protected void saxCharacters(char[] ch, int start, int length) {
+		if (skipDepth > 0) {
+			return;
+		}
+		saxCharacterCalled = true;
+
+		if (textLength + length > text.length) {
+			char[] aux = new char[Math.max(text.length * 2, textLength + length)];
+			System.arraycopy(text, 0, aux, 0, textLength);
+			text = aux;
+		}
+		System.arraycopy(ch, start, text, textLength, length);
+		textLength += length;
+	}
+
+	/**
+	 * Called when reading the content of an XML element
 	 * @param value the content of the element
 	 */
 	protected void saxCharacters(String value) {
-        saxCharacterCalled = true;
+		if (value == null) {
+			saxCharacterCalled = true;
+			return;
+		}
+		saxCharacters(value.toCharArray(), 0, value.length());
+	}
 
-        if (value == null)
+	/**
+	 * Handle the text accumulated for the current node. Leading and trailing
+	 * white spaces are ignored
+	 */
+	protected void handleText() {
+		if (textLength == 0) {
 			return;
+		}
 
-		value = value.trim();
-		if (value.isEmpty())
+		int start = 0;
+		int end = textLength;
+		textLength = 0;
+		while ((start < end) && (text[start] <= ' ')) {
+			start++;
+		}
+		while ((end > start) && (text[end - 1] <= ' ')) {
+			end--;
+		}
+		if (start == end) {
 			return;
+		}
 
-		switch (getNodeType()) {
-		case ROOT:
+		switch (state) {
+		case STATE_ROOT:
 			return;
 
-		case PROPERTY:
-			handleContentProperty(value);
+		case STATE_PROPERTY:
+			handleContentProperty(text, start, end - start);
 			break;
 			
-		case CLASS:
-			handleContentClass(value);
+		case STATE_CLASS:
+			handleContentClass(new String(text, start, end - start));
 			break;
 			
-		case CUSTOM_PROPERTIES:
-			handleContentCustomProperty(value);
+		case STATE_CUSTOM_PROPERTIES:
+			handleContentCustomProperty(new String(text, start, end - start));
 		}
 	}
 
@@ -505,23 +1105,32 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	 * @param value is the node text content
 	 */
 	protected void handleContentProperty(String value) {
-        PropertyMetaData prop = node.getPropertyMetaData();
-
-        Object val = convertValueFromString(prop, value);
-//        if (value == null || value.isEmpty()) {
-//            val = null;
-//        }
-//        else {
-//            Class type = prop.getConvertionType();
-//            DataConverter conv = context.findConverter(type);
-//            val = conv.convertFromString(value, type);
-//        }
+        PropertyMetaData prop = nodeProperties[nodeDepth - 1];
+        assignPropertyValue(prop, convertValueFromString(prop, value));
+	}
 
-		ObjectValues vals = objects.pop();
-        if (vals.findPropertyValue(prop) == null) {
-            vals.addValue(prop.getPath(), val);
+	/**
+	 * handle the text content of the XML node when the current node is a property. The
+	 * value is converted directly from the chars, and a string is just created if necessary
+	 * @param buf the buffer containing the text
+	 * @param start the position of the first char in the buffer
+	 * @param length the number of chars
+	 */
+	protected void handleContentProperty(char[] buf, int start, int length) {
+        PropertyMetaData prop = nodeProperties[nodeDepth - 1];
+        assignPropertyValue(prop, convertValueFromChars(prop, buf, start, length));
+	}
+
+	/**
+	 * Assign the value read to the property of the current object, if no value was assigned yet
+	 * @param prop the property
+	 * @param val the value
+	 */
+	private void assignPropertyValue(PropertyMetaData prop, Object val) {
+		ObjectValues vals = objects.peek();
+        if (!vals.isAssigned(prop)) {
+            vals.addValue(prop, val);
         }
-		objects.push(vals);
 	}
 	
 	
@@ -530,9 +1139,10 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	 * @param value is the node text content
 	 */
 	protected void handleContentClass(String value) {
-		throw new DataStreamException(node.getClassMetaData(), 
-				null, getNodeHistory() +
-				": A class element cannot have a content: " + node.getClassMetaData().getGraph().getName());
+		ClassMetaData cmd = nodeClasses[nodeDepth - 1];
+		throw new DataStreamException(cmd, 
+				null, getLocation(),
+				"A class element cannot have a content: " + cmd.getGraph().getName());
 	}
 	
 	
@@ -543,43 +1153,16 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	protected void handleContentCustomProperty(String value) {
 		// if there is no custom property name, so the content belongs to the custom property node
 		if (customPropName == null) {
-			throw new DataStreamException(node.getClassMetaData(), 
-					null, 
-					getNodeHistory() + ":" + node.getClassMetaData().getGraph().getCustomPropertiesNode() + 
-					" Node cannot have a content, just other nodes");
+			ClassMetaData cmd = nodeClasses[nodeDepth - 1];
+			throw new DataStreamException(cmd, 
+					null, getLocation(),
+					cmd.getGraph().getCustomPropertiesNode() + " Node cannot have a content, just other nodes");
 		}
 		
 		// set the content of the custom property
 		customProperties.put(customPropName, value);
 	}
 	
-	/**
-	 * Return a text containing the displayable history of the current node
-	 * @return String value
-	 */
-	protected String getNodeHistory() {
-		String s = "";
-		for (ObjectValues obj: objects) {
-			if (!s.isEmpty()) {
-				s += ", ";
-			}
-			s += obj.getClassMetaData().getGraph().getName();
-			if ((obj.getProperties() != null) && (obj.getProperties().size() > 0)) {
-				String text = "";
-				for (PropertyValue prop: obj.getProperties()) {
-					if (!text.isEmpty()) {
-						text += ", ";
-					}
-					String propname = prop.getProperty().getElementName() != null? prop.getProperty().getElementName(): prop.getProperty().getPropertyName();
-					text += propname + "=" + prop.getValue();
-				}
-				s += "[" + text + "]"; 
-			}
-		}
-		return s;
-	}
-
-
 	/** {@inheritDoc}
 	 */
 	@Override
@@ -606,20 +1189,135 @@ public class XmlDataUnmarshallerImpl implements DataUnmarshaller {
 	 * @return instance of the enumeration {@link NodeType}
 	 */
 	public NodeType getNodeType() {
-		if (node == null) {
-			return NodeType.ROOT;
+		return NODE_TYPES[state];
+	}
+
+	/**
+	 * Push a node of a class in the stack of nodes. The current state becomes a class state
+	 * @param cmd the class of the node
+	 */
+	private void pushClassNode(ClassMetaData cmd) {
+		ensureNodeCapacity();
+		nodeClasses[nodeDepth] = cmd;
+		nodeProperties[nodeDepth] = null;
+		nodeDepth++;
+		state = STATE_CLASS;
+	}
+
+	/**
+	 * Push a node of a property in the stack of nodes. The current state becomes a property state
+	 * @param prop the property of the node
+	 */
+	private void pushPropertyNode(PropertyMetaData prop) {
+		ensureNodeCapacity();
+		nodeClasses[nodeDepth] = null;
+		nodeProperties[nodeDepth] = prop;
+		nodeDepth++;
+		state = STATE_PROPERTY;
+	}
+
+	/**
+	 * Remove the current node from the stack, restoring the state of its parent node
+	 */
+	private void popNode() {
+		nodeDepth--;
+		if (nodeDepth == 0) {
+			state = STATE_ROOT;
 		}
-		
-		if (customProperties != null) {
-			return NodeType.CUSTOM_PROPERTIES;
+		else {
+			state = nodeClasses[nodeDepth - 1] != null ? STATE_CLASS : STATE_PROPERTY;
 		}
-		
-		if (node.isClassSelection()) {
-			return NodeType.CLASS;
+	}
+
+	private void ensureNodeCapacity() {
+		if (nodeDepth == nodeClasses.length) {
+			ClassMetaData[] classes = new ClassMetaData[nodeDepth * 2];
+			System.arraycopy(nodeClasses, 0, classes, 0, nodeDepth);
+			nodeClasses = classes;
+			PropertyMetaData[] props = new PropertyMetaData[nodeDepth * 2];
+			System.arraycopy(nodeProperties, 0, props, 0, nodeDepth);
+			nodeProperties = props;
 		}
-		else {
-			return NodeType.PROPERTY;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void setTolerant(boolean tolerant) {
+		this.tolerant = tolerant;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void setOffset(int offset) {
+		this.offset = offset;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void setFilter(ObjectFilter filter) {
+		this.filter = filter;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * Return true if reading of the current document was stopped, by the client or because
+	 * the limit of objects was reached
+	 * @return boolean value
+	 */
+	protected boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * @return the number of root objects to skip
+	 */
+	protected int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return the maximum number of root objects to read, or 0 if there is no limit
+	 */
+	protected int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Register the settings of this unmarshaller, like the custom property writers, in another unmarshaller
+	 * @param um the unmarshaller to receive the settings
+	 */
+	protected void copySettings(DataUnmarshaller um) {
+		um.setTolerant(tolerant);
+		um.setOffset(offset);
+		um.setLimit(limit);
+		um.setFilter(filter);
+		if (propWriters != null) {
+			for (CustomPropertiesWriter writer: propWriters) {
+				um.addPropertyWriter(writer);
+			}
 		}
 	}
-	
+
+	/**
+	 * @return the context of the unmarshaller
+	 */
+	protected StreamContextImpl getContext() {
+		return context;
+	}
 }
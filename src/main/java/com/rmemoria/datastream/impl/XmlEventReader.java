@@ -0,0 +1,92 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.impl;
+
+import javax.xml.stream.XMLStreamConstants;
+
+import org.xml.sax.Attributes;
+
+/**
+ * Source of events of an XML document, read in a pull fashion. Events are
+ * the ones declared in {@link XMLStreamConstants}, but just START_ELEMENT, END_ELEMENT,
+ * CHARACTERS and END_DOCUMENT are returned
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public interface XmlEventReader {
+
+	/**
+	 * Return true if there are more events to be read
+	 * @return boolean value
+	 */
+	boolean hasNext();
+
+	/**
+	 * Move to the next event of the document
+	 * @return the event type
+	 */
+	int next();
+
+	/**
+	 * Return the qualified name of the current element, in START_ELEMENT and END_ELEMENT events
+	 * @return String value
+	 */
+	String getName();
+
+	/**
+	 * Return the attributes of the current element, in START_ELEMENT events
+	 * @return instance of {@link Attributes}, or null if the element has no attribute
+	 */
+	Attributes getAttributes();
+
+	/**
+	 * Return the text of the current CHARACTERS event
+	 * @return String value
+	 */
+	String getText();
+
+	/**
+	 * Return the buffer containing the text of the current CHARACTERS event. The buffer
+	 * may be reused by the next event
+	 * @return array of chars
+	 */
+	char[] getTextCharacters();
+
+	/**
+	 * Return the position of the first char of the text in the buffer returned by {@link #getTextCharacters()}
+	 * @return int value
+	 */
+	int getTextStart();
+
+	/**
+	 * Return the number of chars of the text of the current CHARACTERS event
+	 * @return int value
+	 */
+	int getTextLength();
+
+	/**
+	 * Skip the content of the current element, in a START_ELEMENT event, until its end.
+	 * No event is generated for the content, and the END_ELEMENT event of the element
+	 * is consumed too
+	 */
+	void skipElement();
+
+	/**
+	 * Return the line number of the current event
+	 * @return the line number, or -1 if the reader doesn't track lines
+	 */
+	int getLineNumber();
+
+	/**
+	 * Return the column number of the current event
+	 * @return the column number, or -1 if the reader doesn't track columns
+	 */
+	int getColumnNumber();
+
+	/**
+	 * Release the resources of the reader. The input stream is not closed
+	 */
+	void close();
+}
@@ -0,0 +1,343 @@
+/**
+ *
+ */
+package com.rmemoria.datastream.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.rmemoria.datastream.CustomPropertiesWriter;
+import com.rmemoria.datastream.DataParallelUnmarshaller;
+import com.rmemoria.datastream.ObjectConsumer;
+import com.rmemoria.datastream.ObjectFilter;
+
+/**
+ * Unmarshall the objects of a collection using several threads. The document is split by
+ * the {@link XmlChunkReader} in the thread of the caller, and each chunk is read by a pull
+ * unmarshaller in a thread of the executor. Unmarshallers are reused between chunks, so each
+ * thread reads its chunk with its own stack of object values.
+ * <p>
+ * The number of chunks waiting to be delivered is limited, so just a few chunks are kept in
+ * memory, no matter the size of the document
+ *
+ * @author Ricardo Memoria
+ *
+ */
+public class XmlParallelUnmarshallerImpl extends XmlDataUnmarshallerImpl implements DataParallelUnmarshaller {
+
+	private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+	private ExecutorService executor;
+	private boolean ordered = true;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	// unmarshallers not in use by a thread. The settings are copied to the unmarshaller when
+	// it's created, so the unmarshallers are discarded when the settings change
+	private Queue<XmlPullUnmarshallerImpl> unmarshallers = new ConcurrentLinkedQueue<XmlPullUnmarshallerImpl>();
+	// number of objects skipped and delivered to the consumer in the current document
+	private int skipped;
+	private int delivered;
+
+	/**
+	 * Objects read from a chunk, with the class of the graph of each object
+	 */
+	protected static class ChunkResult implements ObjectConsumer {
+		private List<Class> classes = new ArrayList<Class>();
+		private List<Object> objects = new ArrayList<Object>();
+		private Class currentClass;
+
+		/** {@inheritDoc}
+		 */
+		@Override
+		public void onNewObject(Object object) {
+			classes.add(currentClass);
+			objects.add(object);
+		}
+
+		/** {@inheritDoc}
+		 */
+		@Override
+		public void startObjectReading(Class objectClass) {
+			currentClass = objectClass;
+		}
+	}
+
+	/**
+	 * Default constructor, receiving the context as parameter
+	 * @param context instance of the {@link StreamContextImpl}
+	 */
+	public XmlParallelUnmarshallerImpl(StreamContextImpl context) {
+		super(context);
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Object unmarshall(InputStream xmlstream) {
+		if (getContext().getCollectionMetaData() == null) {
+			return super.unmarshall(xmlstream);
+		}
+
+		final List<Object> lst = new ArrayList<Object>();
+		unmarshall(xmlstream, new ObjectConsumer() {
+			@Override
+			public void onNewObject(Object object) {
+				lst.add(object);
+			}
+
+			@Override
+			public void startObjectReading(Class objectClass) {
+			}
+		});
+		return lst;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void unmarshall(InputStream stream, ObjectConsumer consumer) {
+		// just collections can be split in chunks
+		if (getContext().getCollectionMetaData() == null) {
+			super.unmarshall(stream, consumer);
+			return;
+		}
+
+		XmlTokenizer tokenizer = new XmlTokenizer(stream, new SymbolTable());
+		boolean supported = tokenizer.isSupportedDocument();
+		stream = tokenizer.getBufferedStream();
+		if (!supported) {
+			super.unmarshall(stream, consumer);
+			return;
+		}
+
+		resetParseState();
+		skipped = 0;
+		delivered = 0;
+
+		ExecutorService exec = executor;
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (exec == null) {
+			exec = Executors.newFixedThreadPool(threads);
+		}
+		try {
+			XmlChunkReader reader = new XmlChunkReader(stream, chunkSize);
+			// limit the number of chunks in memory
+			int maxPending = threads * 2;
+			if (ordered) {
+				readOrdered(reader, exec, maxPending, consumer);
+			}
+			else {
+				readUnordered(reader, exec, maxPending, consumer);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (executor == null) {
+				exec.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Read the chunks, sending the objects to the consumer in the order of the document
+	 * @param reader the reader of chunks
+	 * @param exec the executor of the threads
+	 * @param maxPending the maximum number of chunks not delivered
+	 * @param consumer the consumer of the objects
+	 * @throws IOException
+	 */
+	protected void readOrdered(XmlChunkReader reader, ExecutorService exec, int maxPending,
+			ObjectConsumer consumer) throws IOException {
+		Deque<Future<ChunkResult>> pending = new ArrayDeque<Future<ChunkResult>>();
+		try {
+			byte[] chunk;
+			while ((!isStopped()) && ((chunk = reader.nextChunk()) != null)) {
+				pending.add(exec.submit(createTask(chunk)));
+				if (pending.size() >= maxPending) {
+					deliver(pending.poll(), consumer);
+				}
+			}
+			while ((!isStopped()) && (!pending.isEmpty())) {
+				deliver(pending.poll(), consumer);
+			}
+		} finally {
+			for (Future<ChunkResult> future: pending) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Read the chunks, sending the objects to the consumer as soon as its chunk is read
+	 * @param reader the reader of chunks
+	 * @param exec the executor of the threads
+	 * @param maxPending the maximum number of chunks not delivered
+	 * @param consumer the consumer of the objects
+	 * @throws IOException
+	 */
+	protected void readUnordered(XmlChunkReader reader, ExecutorService exec, int maxPending,
+			ObjectConsumer consumer) throws IOException {
+		CompletionService<ChunkResult> service = new ExecutorCompletionService<ChunkResult>(exec);
+		Set<Future<ChunkResult>> pending = new HashSet<Future<ChunkResult>>();
+		try {
+			byte[] chunk;
+			while ((!isStopped()) && ((chunk = reader.nextChunk()) != null)) {
+				pending.add(service.submit(createTask(chunk)));
+				if (pending.size() >= maxPending) {
+					deliver(take(service, pending), consumer);
+				}
+			}
+			while ((!isStopped()) && (!pending.isEmpty())) {
+				deliver(take(service, pending), consumer);
+			}
+		} finally {
+			for (Future<ChunkResult> future: pending) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Create the task that reads the objects of a chunk
+	 * @param chunk the chunk, as a complete XML document
+	 * @return instance of {@link Callable}
+	 */
+	protected Callable<ChunkResult> createTask(final byte[] chunk) {
+		return new Callable<ChunkResult>() {
+			@Override
+			public ChunkResult call() throws Exception {
+				XmlPullUnmarshallerImpl um = unmarshallers.poll();
+				if (um == null) {
+					um = new XmlPullUnmarshallerImpl(getContext(), true);
+					copySettings(um);
+					// offset and limit are applied when the objects are delivered
+					um.setOffset(0);
+					um.setLimit(0);
+				}
+				ChunkResult res = new ChunkResult();
+				um.unmarshall(new ByteArrayInputStream(chunk), res);
+				unmarshallers.add(um);
+				return res;
+			}
+		};
+	}
+
+	/**
+	 * Wait for the next chunk read by the completion service, removing it from the pending chunks
+	 */
+	private Future<ChunkResult> take(CompletionService<ChunkResult> service, Set<Future<ChunkResult>> pending) {
+		try {
+			Future<ChunkResult> future = service.take();
+			pending.remove(future);
+			return future;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Wait for the chunk to be read and send its objects to the consumer
+	 * @param future the result of the task that reads the chunk
+	 * @param consumer the consumer of the objects
+	 */
+	private void deliver(Future<ChunkResult> future, ObjectConsumer consumer) {
+		ChunkResult res;
+		try {
+			res = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			throw new RuntimeException(cause);
+		}
+
+		for (int i = 0; i < res.objects.size(); i++) {
+			if (isStopped()) {
+				return;
+			}
+			if (skipped < getOffset()) {
+				skipped++;
+				continue;
+			}
+			consumer.startObjectReading(res.classes.get(i));
+			consumer.onNewObject(res.objects.get(i));
+			delivered++;
+			if ((getLimit() > 0) && (delivered >= getLimit())) {
+				stop();
+			}
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void setTolerant(boolean tolerant) {
+		super.setTolerant(tolerant);
+		unmarshallers.clear();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void setFilter(ObjectFilter filter) {
+		super.setFilter(filter);
+		unmarshallers.clear();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void addPropertyWriter(CustomPropertiesWriter writer) {
+		super.addPropertyWriter(writer);
+		unmarshallers.clear();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void removePropertyWriter(CustomPropertiesWriter writer) {
+		super.removePropertyWriter(writer);
+		unmarshallers.clear();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void setOrdered(boolean ordered) {
+		this.ordered = ordered;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+}
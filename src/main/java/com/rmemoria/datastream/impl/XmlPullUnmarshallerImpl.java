@@ -0,0 +1,246 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.impl;
+
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.rmemoria.datastream.DataPullUnmarshaller;
+
+/**
+ * Unmarshall objects from an XML document using a pull parser. The events are
+ * pulled from an {@link XmlEventReader} and handled by the same rules of the
+ * {@link XmlDataUnmarshallerImpl}, but the document is just read until the next object is
+ * available, so the client can pull one object at a time and stop reading at any time.
+ * <p>
+ * The events are read by the StAX parser of the JDK, or by the {@link XmlTokenizer}, if
+ * enabled and the document is in the subset of XML supported by it
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class XmlPullUnmarshallerImpl extends XmlDataUnmarshallerImpl implements DataPullUnmarshaller {
+
+	private static XMLInputFactory inputFactory;
+
+	private XmlEventReader reader;
+	// if true, documents are read by the byte level tokenizer when possible
+	private boolean useTokenizer;
+	// the tokenizer is reused between documents
+	private XmlTokenizer tokenizer;
+	// if true, the current document is read by the tokenizer
+	private boolean tokenizing;
+	// the reader of the current document
+	private XmlEventReader currentReader;
+	// if true, objects are kept to be pulled by the client
+	private boolean pulling;
+	private Object nextObject;
+	private boolean nextAvailable;
+
+	/**
+	 * Default constructor, receiving the context as parameter
+	 * @param context instance of the {@link StreamContextImpl}
+	 */
+	public XmlPullUnmarshallerImpl(StreamContextImpl context) {
+		super(context);
+	}
+
+	/**
+	 * Create the unmarshaller, indicating if the documents are read by the {@link XmlTokenizer}
+	 * @param context instance of the {@link StreamContextImpl}
+	 * @param useTokenizer if true, the tokenizer is used when the document is supported by it
+	 */
+	public XmlPullUnmarshallerImpl(StreamContextImpl context, boolean useTokenizer) {
+		super(context);
+		this.useTokenizer = useTokenizer;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	protected void startParse(InputStream xmlstream) {
+		// objects are not pulled when reading the whole document
+		close();
+		XmlEventReader rd = createReader(xmlstream);
+		while ((!isStopped()) && (rd.hasNext())) {
+			handleEvent(rd, rd.next());
+		}
+		rd.close();
+		currentReader = null;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void open(InputStream stream) {
+		close();
+		resetParseState();
+		reader = createReader(stream);
+		pulling = true;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Iterator<Object> iterator(InputStream stream) {
+		return new ObjectIterator(this, stream);
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext() {
+		if (reader != null) {
+			while ((!nextAvailable) && (!isStopped()) && (reader.hasNext())) {
+				handleEvent(reader, reader.next());
+			}
+		}
+		return nextAvailable;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Object next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Object obj = nextObject;
+		nextObject = null;
+		nextAvailable = false;
+		return obj;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		if (reader != null) {
+			reader.close();
+			reader = null;
+		}
+		currentReader = null;
+		pulling = false;
+		nextObject = null;
+		nextAvailable = false;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	protected void onRootObject(Object obj) {
+		if (!pulling) {
+			super.onRootObject(obj);
+			return;
+		}
+		nextObject = obj;
+		nextAvailable = true;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	protected long getStreamPosition() {
+		// the StAX parser reads ahead, so just the tokenizer knows the position of the events
+		return tokenizing ? tokenizer.getPosition() : -1;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	protected int getLineNumber() {
+		return currentReader != null ? currentReader.getLineNumber() : -1;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	protected int getColumnNumber() {
+		return currentReader != null ? currentReader.getColumnNumber() : -1;
+	}
+
+	/**
+	 * Handle an event pulled from the XML reader
+	 * @param rd the XML reader
+	 * @param event the event type, as declared in {@link XMLStreamConstants}
+	 */
+	protected void handleEvent(XmlEventReader rd, int event) {
+		switch (event) {
+		case XMLStreamConstants.START_ELEMENT:
+			saxStartElement(rd.getName(), rd.getAttributes());
+			// the content of an element being skipped is not read
+			if (isSkippingElement()) {
+				rd.skipElement();
+				saxEndElement(rd.getName());
+			}
+			break;
+
+		case XMLStreamConstants.END_ELEMENT:
+			saxEndElement(rd.getName());
+			break;
+
+		case XMLStreamConstants.CHARACTERS:
+			saxCharacters(rd.getTextCharacters(), rd.getTextStart(), rd.getTextLength());
+			break;
+		}
+	}
+
+	/**
+	 * Create the reader of events of the given input stream. If the tokenizer is enabled and
+	 * the document is supported by it, the {@link XmlTokenizer} is returned, otherwise the document
+	 * is read by the StAX parser of the JDK
+	 * @param stream the input stream containing the XML document
+	 * @return instance of {@link XmlEventReader}
+	 */
+	protected XmlEventReader createReader(InputStream stream) {
+		if (useTokenizer) {
+			if (tokenizer == null) {
+				tokenizer = new XmlTokenizer(stream, getContext().createSymbolTable());
+			}
+			else {
+				tokenizer.reset(stream);
+			}
+			tokenizing = tokenizer.isSupportedDocument();
+			if (tokenizing) {
+				currentReader = tokenizer;
+				return tokenizer;
+			}
+			stream = tokenizer.getBufferedStream();
+		}
+
+		XMLInputFactory factory = getInputFactory();
+		// the factory is shared between unmarshallers, and it's not thread safe
+		synchronized (factory) {
+			try {
+				XMLStreamReader rd = factory.createXMLStreamReader(stream);
+				currentReader = new StaxEventReader(rd);
+				return currentReader;
+			} catch (XMLStreamException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * Return the factory of StAX readers, shared by all pull unmarshallers. The factory is
+	 * created once, since its creation requires a lookup of the available implementations
+	 * @return instance of {@link XMLInputFactory}
+	 */
+	protected static synchronized XMLInputFactory getInputFactory() {
+		if (inputFactory == null) {
+			inputFactory = XMLInputFactory.newInstance();
+			// text of an element is reported in a single event
+			inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+			// internal entities declared in the DTD are expanded, but external entities are not resolved
+			inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		}
+		return inputFactory;
+	}
+}
@@ -0,0 +1,1012 @@
+/**
+ *
+ */
+package com.rmemoria.datastream.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLStreamConstants;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+import com.rmemoria.datastream.DataStreamException;
+
+/**
+ * Tokenizer of XML documents working directly on the bytes of the input stream. It supports
+ * the subset of XML produced by the data stream marshaller: UTF-8 (or ASCII) documents with no
+ * DTD, where names are reported with its prefix, as declared in the document. The XML declaration,
+ * comments, processing instructions, CDATA sections, the predefined entities and character
+ * references are supported.
+ * <p>
+ * Before reading a document, {@link #isSupportedDocument()} must be checked. If the prolog of
+ * the document is out of the supported subset, the document must be read by another parser
+ * from the stream returned by {@link #getBufferedStream()}
+ *
+ * @author Ricardo Memoria
+ *
+ */
+public class XmlTokenizer implements XmlEventReader {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	// minimum number of bytes read to check the prolog of the document
+	private static final int PROLOG_SIZE = 1024;
+	// smallest code point encoded by a UTF-8 sequence of each length, to reject overlong sequences
+	private static final int[] MIN_CODE_POINT = {0, 0, 0x80, 0x800, 0x10000};
+
+	private InputStream in;
+	private byte[] buf = new byte[BUFFER_SIZE];
+	private int pos;
+	private int limit;
+	// number of bytes discarded from the buffer
+	private long offset;
+	private boolean eof;
+
+	private SymbolTable symbols;
+
+	private int event = XMLStreamConstants.START_DOCUMENT;
+	private String name;
+	private AttributesImpl attributes = new AttributesImpl();
+	private boolean hasAttributes;
+	private boolean pendingEndElement;
+
+	private char[] text = new char[256];
+	private int textLength;
+	private char[] value = new char[64];
+	private int valueLength;
+	private byte[] nameBuf = new byte[64];
+	private boolean skipLF;
+
+	// names of the open elements
+	private String[] elements = new String[16];
+	private int depth;
+	private boolean rootClosed;
+
+	/**
+	 * Create a tokenizer of the given input stream
+	 * @param in the input stream containing the document
+	 * @param symbols the table of names in use by the document
+	 */
+	public XmlTokenizer(InputStream in, SymbolTable symbols) {
+		super();
+		this.symbols = symbols;
+		reset(in);
+	}
+
+	/**
+	 * Prepare the tokenizer to read a new document, reusing its buffers and its symbol table
+	 * @param in the input stream containing the document
+	 */
+	public void reset(InputStream in) {
+		this.in = in;
+		pos = 0;
+		limit = 0;
+		offset = 0;
+		eof = false;
+		event = XMLStreamConstants.START_DOCUMENT;
+		name = null;
+		hasAttributes = false;
+		pendingEndElement = false;
+		textLength = 0;
+		while (depth > 0) {
+			elements[--depth] = null;
+		}
+		rootClosed = false;
+		try {
+			ensure(PROLOG_SIZE);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Check if the prolog of the document is in the subset of XML supported by the tokenizer,
+	 * i.e, if there is no DTD declaration and the document is encoded in UTF-8 or ASCII.
+	 * Must be called before reading the first event
+	 * @return true if the document can be read by the tokenizer
+	 */
+	public boolean isSupportedDocument() {
+		int p = hasByteOrderMark() ? 3 : 0;
+		boolean supported;
+		try {
+			supported = checkProlog(p);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		// the byte order mark is not part of the content
+		if (supported) {
+			pos = p;
+		}
+		return supported;
+	}
+
+	/**
+	 * Check if the document starts with the UTF-8 byte order mark
+	 * @return true if the byte order mark is found
+	 */
+	private boolean hasByteOrderMark() {
+		return (limit >= 3) && ((buf[0] & 0xFF) == 0xEF) && ((buf[1] & 0xFF) == 0xBB) && ((buf[2] & 0xFF) == 0xBF);
+	}
+
+	/**
+	 * Check if the prolog of the document is in the subset of XML supported by the tokenizer.
+	 * The prolog is read to the buffer until the root element, so comments and processing
+	 * instructions of any size are checked
+	 * @param p the position of the first byte after the byte order mark
+	 * @return true if the document can be read by the tokenizer
+	 * @throws IOException
+	 */
+	private boolean checkProlog(int p) throws IOException {
+		// UTF-16 and UTF-32 documents start with a zero byte or a byte order mark
+		if ((limit > p) && ((buf[p] == 0) || ((buf[p] & 0xFF) == 0xFE) || ((buf[p] & 0xFF) == 0xFF))) {
+			return false;
+		}
+
+		// check the encoding declared in the XML declaration
+		if (startsWith(p, "<?xml")) {
+			int end = indexOfInProlog(p, "?>");
+			if (end < 0) {
+				return false;
+			}
+			String decl = new String(buf, p, end - p).replace('\'', '"');
+			int index = decl.indexOf("encoding");
+			if (index >= 0) {
+				int start = decl.indexOf('"', index);
+				int last = start >= 0 ? decl.indexOf('"', start + 1) : -1;
+				if (last < 0) {
+					return false;
+				}
+				String enc = decl.substring(start + 1, last);
+				if ((!enc.equalsIgnoreCase("UTF-8")) && (!enc.equalsIgnoreCase("UTF8")) &&
+					(!enc.equalsIgnoreCase("US-ASCII")) && (!enc.equalsIgnoreCase("ASCII"))) {
+					return false;
+				}
+			}
+			p = end + 2;
+		}
+
+		// search for a DTD declaration before the root element
+		while ((p < limit) || (ensure(p + 1))) {
+			byte b = buf[p];
+			if ((b == ' ') || (b == '\n') || (b == '\t') || (b == '\r')) {
+				p++;
+				continue;
+			}
+			// content out of markup is reported as an error when the document is read
+			if (b != '<') {
+				return true;
+			}
+			ensure(p + 9);
+			if (startsWith(p, "<!--")) {
+				int end = indexOfInProlog(p + 4, "-->");
+				if (end < 0) {
+					return true;
+				}
+				p = end + 3;
+			}
+			else if (startsWith(p, "<?")) {
+				int end = indexOfInProlog(p + 2, "?>");
+				if (end < 0) {
+					return true;
+				}
+				p = end + 2;
+			}
+			else {
+				return !startsWith(p, "<!DOCTYPE");
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Search for a string in the prolog of the document, reading more bytes to the buffer
+	 * until the string is found. Must be called before reading the first event
+	 * @param p the position to start the search
+	 * @param s the string to search for
+	 * @return the position of the string, or -1 if the end of the document is reached
+	 * @throws IOException
+	 */
+	private int indexOfInProlog(int p, String s) throws IOException {
+		while (true) {
+			int index = indexOf(p, s);
+			if (index >= 0) {
+				return index;
+			}
+			// the string may start in the last bytes read
+			p = Math.max(p, limit - s.length() + 1);
+			if (!ensure(limit + 1)) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Return the input stream with the content of the document not read yet by the tokenizer,
+	 * including the bytes in its buffer
+	 * @return instance of {@link InputStream}
+	 */
+	public InputStream getBufferedStream() {
+		// the bytes are copied, since the buffer is reused by the next document
+		byte[] data = Arrays.copyOfRange(buf, pos, limit);
+		return new SequenceInputStream(new ByteArrayInputStream(data), in);
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext() {
+		return event != XMLStreamConstants.END_DOCUMENT;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int next() {
+		try {
+			event = readEvent();
+			return event;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Attributes getAttributes() {
+		return hasAttributes ? attributes : null;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public String getText() {
+		return new String(text, 0, textLength);
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public char[] getTextCharacters() {
+		return text;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int getTextStart() {
+		return 0;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int getTextLength() {
+		return textLength;
+	}
+
+	/** {@inheritDoc}
+	 * <p>
+	 * The content is skipped by just counting the depth of the tags, with no decoding of names,
+	 * attributes or text
+	 */
+	@Override
+	public void skipElement() {
+		try {
+			if (!pendingEndElement) {
+				skipContent();
+			}
+			pendingEndElement = false;
+			event = endElement();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** {@inheritDoc}
+	 * Lines are not counted by the tokenizer, and the position of the events is given by {@link #getPosition()}
+	 */
+	@Override
+	public int getLineNumber() {
+		return -1;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int getColumnNumber() {
+		return -1;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		in = null;
+		event = XMLStreamConstants.END_DOCUMENT;
+	}
+
+	/**
+	 * Return the position of the tokenizer in the input stream, i.e, the number of bytes consumed
+	 * @return long value
+	 */
+	public long getPosition() {
+		return offset + pos;
+	}
+
+	/**
+	 * Read the next event from the document
+	 * @return the event type
+	 * @throws IOException
+	 */
+	protected int readEvent() throws IOException {
+		if (pendingEndElement) {
+			pendingEndElement = false;
+			return endElement();
+		}
+
+		textLength = 0;
+		skipLF = false;
+		while (true) {
+			if ((pos >= limit) && (!ensure(1))) {
+				if (depth > 0) {
+					throw error("Unexpected end of document");
+				}
+				if (!rootClosed) {
+					throw error("No root element found");
+				}
+				return XMLStreamConstants.END_DOCUMENT;
+			}
+
+			byte b = buf[pos];
+			if (b == '<') {
+				if (!ensure(2)) {
+					throw error("Unexpected end of document");
+				}
+				byte b2 = buf[pos + 1];
+				if (b2 == '!') {
+					if (matches("<!--")) {
+						skipUntil("-->", 4);
+					}
+					else if (matches("<![CDATA[")) {
+						readCData();
+					}
+					else {
+						throw error("Document type declaration is not supported");
+					}
+					continue;
+				}
+				if (b2 == '?') {
+					skipUntil("?>", 2);
+					continue;
+				}
+				// the text before the tag is reported first
+				if (textLength > 0) {
+					if (depth > 0) {
+						return XMLStreamConstants.CHARACTERS;
+					}
+					textLength = 0;
+				}
+				return readTag();
+			}
+
+			if (b == '&') {
+				pos++;
+				appendText(readReference());
+				continue;
+			}
+
+			readText();
+			if ((depth == 0) && (!isWhitespace(text, textLength))) {
+				throw error("Content is not allowed outside the root element");
+			}
+		}
+	}
+
+	/**
+	 * Read the characters of a text until a markup or a reference is found
+	 * @throws IOException
+	 */
+	private void readText() throws IOException {
+		while ((pos < limit) || (ensure(1))) {
+			byte b = buf[pos];
+			if ((b == '<') || (b == '&')) {
+				return;
+			}
+			if ((b >= 0) && (b != '\r') && (!skipLF)) {
+				// a run of ASCII characters is copied with no decoding
+				int end = pos + 1;
+				while ((end < limit) && (buf[end] >= 0) && (buf[end] != '<') && (buf[end] != '&') && (buf[end] != '\r')) {
+					end++;
+				}
+				appendAscii(pos, end - pos);
+				pos = end;
+			}
+			else if (b >= 0) {
+				pos++;
+				appendText(b);
+			}
+			else {
+				appendText(readCodePoint());
+			}
+		}
+	}
+
+	/**
+	 * Read the content of a CDATA section, appending it to the text
+	 * @throws IOException
+	 */
+	private void readCData() throws IOException {
+		pos += 9;
+		while (true) {
+			if (!ensure(3)) {
+				throw error("Unexpected end of document in CDATA section");
+			}
+			byte b = buf[pos];
+			if ((b == ']') && (buf[pos + 1] == ']') && (buf[pos + 2] == '>')) {
+				pos += 3;
+				return;
+			}
+			if (b >= 0) {
+				pos++;
+				appendText(b);
+			}
+			else {
+				appendText(readCodePoint());
+			}
+		}
+	}
+
+	/**
+	 * Skip the content of the current element, including its end tag
+	 * @throws IOException
+	 */
+	private void skipContent() throws IOException {
+		int level = 1;
+		while (level > 0) {
+			if (!ensure(2)) {
+				throw error("Unexpected end of document");
+			}
+			if (buf[pos++] != '<') {
+				continue;
+			}
+			byte b = buf[pos];
+			if (b == '/') {
+				skipTag();
+				level--;
+			}
+			else if (b == '!') {
+				if (matches("!--")) {
+					skipUntil("-->", 3);
+				}
+				else if (matches("![CDATA[")) {
+					skipUntil("]]>", 8);
+				}
+				else {
+					throw error("Document type declaration is not supported");
+				}
+			}
+			else if (b == '?') {
+				skipUntil("?>", 1);
+			}
+			else if (!skipTag()) {
+				level++;
+			}
+		}
+	}
+
+	/**
+	 * Skip a tag until its '>', ignoring the '>' inside attribute values
+	 * @return true if the tag is an empty element tag, i.e, ends with '/>'
+	 * @throws IOException
+	 */
+	private boolean skipTag() throws IOException {
+		int quote = 0;
+		byte prev = 0;
+		while (true) {
+			if ((pos >= limit) && (!ensure(1))) {
+				throw error("Unexpected end of document");
+			}
+			byte b = buf[pos++];
+			if (quote != 0) {
+				if (b == quote) {
+					quote = 0;
+				}
+			}
+			else if ((b == '"') || (b == '\'')) {
+				quote = b;
+			}
+			else if (b == '>') {
+				return prev == '/';
+			}
+			prev = b;
+		}
+	}
+
+	/**
+	 * Read a start or an end tag
+	 * @return the event type
+	 * @throws IOException
+	 */
+	private int readTag() throws IOException {
+		// skip the '<'
+		pos++;
+		if (peek() == '/') {
+			pos++;
+			name = readName();
+			skipWhitespaces();
+			expect('>');
+			// names not kept in the symbol table are not the same instance
+			if ((depth == 0) || (!name.equals(elements[depth - 1]))) {
+				throw error("Unexpected end tag " + name);
+			}
+			return endElement();
+		}
+
+		if (rootClosed) {
+			throw error("Element found after the root element");
+		}
+
+		name = readName();
+		hasAttributes = false;
+		while (true) {
+			skipWhitespaces();
+			int c = peek();
+			if (c == '>') {
+				pos++;
+				break;
+			}
+			if (c == '/') {
+				pos++;
+				expect('>');
+				pendingEndElement = true;
+				break;
+			}
+			readAttribute();
+		}
+
+		if (depth == elements.length) {
+			String[] aux = new String[depth * 2];
+			System.arraycopy(elements, 0, aux, 0, depth);
+			elements = aux;
+		}
+		elements[depth++] = name;
+		return XMLStreamConstants.START_ELEMENT;
+	}
+
+	/**
+	 * Close the current element
+	 * @return the END_ELEMENT event
+	 */
+	private int endElement() {
+		depth--;
+		name = elements[depth];
+		elements[depth] = null;
+		if (depth == 0) {
+			rootClosed = true;
+		}
+		return XMLStreamConstants.END_ELEMENT;
+	}
+
+	/**
+	 * Read an attribute declaration and include it in the list of attributes
+	 * @throws IOException
+	 */
+	private void readAttribute() throws IOException {
+		String attr = readName();
+		skipWhitespaces();
+		expect('=');
+		skipWhitespaces();
+		int quote = peek();
+		if ((quote != '"') && (quote != '\'')) {
+			throw error("Attribute value expected for " + attr);
+		}
+		pos++;
+
+		valueLength = 0;
+		while (true) {
+			if (!ensure(1)) {
+				throw error("Unexpected end of document in attribute " + attr);
+			}
+			byte b = buf[pos];
+			if (b == quote) {
+				pos++;
+				break;
+			}
+			if (b == '<') {
+				throw error("Invalid character '<' in attribute " + attr);
+			}
+			if (b == '&') {
+				pos++;
+				appendValue(readReference());
+			}
+			else if (b >= 0) {
+				pos++;
+				if (b == '\r') {
+					// CR LF is normalized to a single space
+					if ((ensure(1)) && (buf[pos] == '\n')) {
+						pos++;
+					}
+					appendValue(' ');
+				}
+				else if ((b == '\n') || (b == '\t')) {
+					appendValue(' ');
+				}
+				else {
+					appendValue((char)b);
+				}
+			}
+			else {
+				appendValue(readCodePoint());
+			}
+		}
+
+		if (!hasAttributes) {
+			attributes.clear();
+			hasAttributes = true;
+		}
+		attributes.addAttribute("", attr, attr, "CDATA", new String(value, 0, valueLength));
+	}
+
+	/**
+	 * Read a name of an element or an attribute
+	 * @return the name, from the symbol table
+	 * @throws IOException
+	 */
+	private String readName() throws IOException {
+		int len = 0;
+		while ((pos < limit) || (ensure(1))) {
+			byte b = buf[pos];
+			if ((b == ' ') || (b == '\n') || (b == '\t') || (b == '\r') || (b == '=') ||
+				(b == '>') || (b == '/') || (b == '<') || (b == '"') || (b == '\'')) {
+				break;
+			}
+			if (len == nameBuf.length) {
+				byte[] aux = new byte[len * 2];
+				System.arraycopy(nameBuf, 0, aux, 0, len);
+				nameBuf = aux;
+			}
+			nameBuf[len++] = b;
+			pos++;
+		}
+		if (len == 0) {
+			throw error("Name expected");
+		}
+		return symbols.lookup(nameBuf, 0, len);
+	}
+
+	/**
+	 * Read an entity or a character reference. The '&' was already consumed
+	 * @return the code point of the character referenced
+	 * @throws IOException
+	 */
+	private int readReference() throws IOException {
+		int end = -1;
+		for (int i = 0; i < 12; i++) {
+			if (!ensure(i + 1)) {
+				break;
+			}
+			if (buf[pos + i] == ';') {
+				end = pos + i;
+				break;
+			}
+		}
+		if (end < 0) {
+			throw error("Invalid reference");
+		}
+		int start = pos;
+		pos = end + 1;
+
+		String ref = new String(buf, start, end - start, "US-ASCII");
+		if (ref.startsWith("#")) {
+			boolean hex = ref.startsWith("#x");
+			String digits = ref.substring(hex ? 2 : 1);
+			int cp = -1;
+			// signs are not accepted by the XML grammar, just digits
+			if ((digits.length() > 0) && (Character.digit(digits.charAt(0), hex ? 16 : 10) >= 0)) {
+				try {
+					cp = Integer.parseInt(digits, hex ? 16 : 10);
+				} catch (NumberFormatException e) {
+					cp = -1;
+				}
+			}
+			if (!isXmlChar(cp)) {
+				throw error("Invalid character reference &" + ref + ";");
+			}
+			return cp;
+		}
+		if (ref.equals("lt")) {
+			return '<';
+		}
+		if (ref.equals("gt")) {
+			return '>';
+		}
+		if (ref.equals("amp")) {
+			return '&';
+		}
+		if (ref.equals("quot")) {
+			return '"';
+		}
+		if (ref.equals("apos")) {
+			return '\'';
+		}
+		throw error("Undeclared entity &" + ref + ";");
+	}
+
+	/**
+	 * Decode the UTF-8 sequence of a character in the current position
+	 * @return the code point of the character
+	 * @throws IOException
+	 */
+	private int readCodePoint() throws IOException {
+		int b = buf[pos] & 0xFF;
+		int len;
+		int cp;
+		if ((b & 0xE0) == 0xC0) {
+			len = 2;
+			cp = b & 0x1F;
+		}
+		else if ((b & 0xF0) == 0xE0) {
+			len = 3;
+			cp = b & 0x0F;
+		}
+		else if ((b & 0xF8) == 0xF0) {
+			len = 4;
+			cp = b & 0x07;
+		}
+		else {
+			throw error("Invalid UTF-8 sequence");
+		}
+
+		if (!ensure(len)) {
+			throw error("Invalid UTF-8 sequence");
+		}
+		for (int i = 1; i < len; i++) {
+			int c = buf[pos + i] & 0xFF;
+			if ((c & 0xC0) != 0x80) {
+				throw error("Invalid UTF-8 sequence");
+			}
+			cp = (cp << 6) | (c & 0x3F);
+		}
+		// overlong sequences, surrogates and code points out of the XML characters are rejected
+		if ((cp < MIN_CODE_POINT[len]) || (!isXmlChar(cp))) {
+			throw error("Invalid UTF-8 sequence");
+		}
+		pos += len;
+		return cp;
+	}
+
+	/**
+	 * Check if the code point is a character allowed in XML documents, as declared
+	 * by the production Char of the XML specification
+	 * @param cp the code point
+	 * @return true if the character is allowed
+	 */
+	private static boolean isXmlChar(int cp) {
+		if (cp < 0x20) {
+			return (cp == 0x9) || (cp == 0xA) || (cp == 0xD);
+		}
+		return (cp <= 0xD7FF) || ((cp >= 0xE000) && (cp <= 0xFFFD)) || ((cp >= 0x10000) && (cp <= 0x10FFFF));
+	}
+
+	/**
+	 * Append a character to the text. New lines are normalized to a single LF
+	 * @param b the character
+	 */
+	private void appendText(byte b) {
+		if (b == '\r') {
+			skipLF = true;
+			appendChar('\n');
+			return;
+		}
+		if ((b == '\n') && (skipLF)) {
+			skipLF = false;
+			return;
+		}
+		skipLF = false;
+		appendChar((char)b);
+	}
+
+	/**
+	 * Append a character, given by its code point, to the text
+	 * @param cp the code point
+	 */
+	private void appendText(int cp) {
+		skipLF = false;
+		if (cp >= 0x10000) {
+			appendChar((char)(((cp - 0x10000) >>> 10) + 0xD800));
+			appendChar((char)(((cp - 0x10000) & 0x3FF) + 0xDC00));
+		}
+		else {
+			appendChar((char)cp);
+		}
+	}
+
+	/**
+	 * Append ASCII characters of the buffer to the text. The characters must not contain a CR
+	 * @param start the position of the first character in the buffer
+	 * @param length the number of characters
+	 */
+	private void appendAscii(int start, int length) {
+		if (textLength + length > text.length) {
+			char[] aux = new char[Math.max(text.length * 2, textLength + length)];
+			System.arraycopy(text, 0, aux, 0, textLength);
+			text = aux;
+		}
+		for (int i = start; i < start + length; i++) {
+			text[textLength++] = (char)buf[i];
+		}
+	}
+
+	private void appendChar(char c) {
+		if (textLength == text.length) {
+			char[] aux = new char[textLength * 2];
+			System.arraycopy(text, 0, aux, 0, textLength);
+			text = aux;
+		}
+		text[textLength++] = c;
+	}
+
+	/**
+	 * Append a character, given by its code point, to the attribute value
+	 * @param cp the code point
+	 */
+	private void appendValue(int cp) {
+		if (valueLength + 2 > value.length) {
+			char[] aux = new char[value.length * 2];
+			System.arraycopy(value, 0, aux, 0, valueLength);
+			value = aux;
+		}
+		if (cp >= 0x10000) {
+			value[valueLength++] = (char)(((cp - 0x10000) >>> 10) + 0xD800);
+			value[valueLength++] = (char)(((cp - 0x10000) & 0x3FF) + 0xDC00);
+		}
+		else {
+			value[valueLength++] = (char)cp;
+		}
+	}
+
+	/**
+	 * Skip the content until the given delimiter is found, including the delimiter
+	 * @param delim the delimiter
+	 * @param start the number of bytes to skip before searching for the delimiter
+	 * @throws IOException
+	 */
+	private void skipUntil(String delim, int start) throws IOException {
+		pos += start;
+		while (true) {
+			if (!ensure(delim.length())) {
+				throw error("Unexpected end of document, expected " + delim);
+			}
+			if (matches(delim)) {
+				pos += delim.length();
+				return;
+			}
+			pos++;
+		}
+	}
+
+	private void skipWhitespaces() throws IOException {
+		while ((pos < limit) || (ensure(1))) {
+			byte b = buf[pos];
+			if ((b != ' ') && (b != '\n') && (b != '\t') && (b != '\r')) {
+				return;
+			}
+			pos++;
+		}
+	}
+
+	private int peek() throws IOException {
+		if (!ensure(1)) {
+			throw error("Unexpected end of document");
+		}
+		return buf[pos];
+	}
+
+	private void expect(char c) throws IOException {
+		if (peek() != c) {
+			throw error("'" + c + "' expected");
+		}
+		pos++;
+	}
+
+	/**
+	 * Check if the bytes in the current position are the given ASCII string
+	 */
+	private boolean matches(String s) throws IOException {
+		if (!ensure(s.length())) {
+			return false;
+		}
+		return startsWith(pos, s);
+	}
+
+	private boolean startsWith(int p, String s) {
+		if (p + s.length() > limit) {
+			return false;
+		}
+		for (int i = 0; i < s.length(); i++) {
+			if (buf[p + i] != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int indexOf(int p, String s) {
+		for (int i = p; i + s.length() <= limit; i++) {
+			if (startsWith(i, s)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isWhitespace(char[] chars, int len) {
+		for (int i = 0; i < len; i++) {
+			char c = chars[i];
+			if ((c != ' ') && (c != '\n') && (c != '\t') && (c != '\r')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Make sure there are at least the given number of bytes available in the buffer
+	 * from the current position, reading more bytes from the input stream if necessary
+	 * @param n the number of bytes
+	 * @return false if the end of the stream was reached before
+	 * @throws IOException
+	 */
+	private boolean ensure(int n) throws IOException {
+		if (limit - pos >= n) {
+			return true;
+		}
+		if (eof) {
+			return false;
+		}
+
+		// move the remaining bytes to the beginning of the buffer
+		if (pos > 0) {
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			offset += pos;
+			limit -= pos;
+			pos = 0;
+		}
+		if (n > buf.length) {
+			byte[] aux = new byte[Math.max(n, buf.length * 2)];
+			System.arraycopy(buf, 0, aux, 0, limit);
+			buf = aux;
+		}
+
+		while (limit < n) {
+			int count = in.read(buf, limit, buf.length - limit);
+			if (count < 0) {
+				eof = true;
+				return false;
+			}
+			limit += count;
+		}
+		return true;
+	}
+
+	/**
+	 * Create the exception to be thrown when the document is malformed
+	 * @param msg the error message
+	 * @return instance of {@link DataStreamException}
+	 */
+	private DataStreamException error(String msg) {
+		return new DataStreamException("Malformed XML at byte " + getPosition() + ": " + msg);
+	}
+}
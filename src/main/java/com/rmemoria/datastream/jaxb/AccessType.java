@@ -0,0 +1,40 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.jaxb;
+
+import javax.xml.bind.annotation.XmlEnum;
+import javax.xml.bind.annotation.XmlType;
+
+
+/**
+ * <p>Java class for accessType.
+ * 
+ * <p>The following schema fragment specifies the expected content contained within this class.
+ * <p>
+ * <pre>
+ * &lt;simpleType name="accessType">
+ *   &lt;restriction base="{http://www.w3.org/2001/XMLSchema}string">
+ *     &lt;enumeration value="PROPERTY"/>
+ *     &lt;enumeration value="FIELD"/>
+ *   &lt;/restriction>
+ * &lt;/simpleType>
+ * </pre>
+ * 
+ */
+@XmlType(name = "accessType")
+@XmlEnum
+public enum AccessType {
+
+    PROPERTY,
+    FIELD;
+
+    public String value() {
+        return name();
+    }
+
+    public static AccessType fromValue(String v) {
+        return valueOf(v);
+    }
+
+}
@@ -32,6 +32,9 @@ import javax.xml.bind.annotation.XmlType;
  *       &lt;attribute name="name" use="required" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="class" use="required" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="parentProperty" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="accessType" type="{}accessType" />
+ *       &lt;attribute name="constructorArgs" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="factoryMethod" type="{http://www.w3.org/2001/XMLSchema}string" />
  *     &lt;/restriction>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -63,6 +66,15 @@ public class ObjectGraph {
     @XmlAttribute
     protected boolean includeNullValues = true;
 
+    @XmlAttribute
+    protected AccessType accessType;
+
+    @XmlAttribute
+    protected String constructorArgs;
+
+    @XmlAttribute
+    protected String factoryMethod;
+
     /**
      * Gets the value of the property property.
      * 
@@ -199,4 +211,76 @@ public class ObjectGraph {
     public void setIncludeNullValues(boolean includeNullValues) {
         this.includeNullValues = includeNullValues;
     }
+
+    /**
+     * Gets the value of the accessType property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link AccessType }
+     *     
+     */
+    public AccessType getAccessType() {
+        return accessType;
+    }
+
+    /**
+     * Sets the value of the accessType property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link AccessType }
+     *     
+     */
+    public void setAccessType(AccessType value) {
+        this.accessType = value;
+    }
+
+    /**
+     * Gets the value of the constructorArgs property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getConstructorArgs() {
+        return constructorArgs;
+    }
+
+    /**
+     * Sets the value of the constructorArgs property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setConstructorArgs(String value) {
+        this.constructorArgs = value;
+    }
+
+    /**
+     * Gets the value of the factoryMethod property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getFactoryMethod() {
+        return factoryMethod;
+    }
+
+    /**
+     * Sets the value of the factoryMethod property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setFactoryMethod(String value) {
+        this.factoryMethod = value;
+    }
 }
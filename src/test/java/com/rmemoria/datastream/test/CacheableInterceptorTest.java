@@ -0,0 +1,101 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.CacheableDataInterceptor;
+import com.rmemoria.datastream.DataMarshaller;
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.test.model.Order;
+import com.rmemoria.datastream.test.model.OrderWrapper;
+
+/**
+ * Test the cache of the graph resolved by the class returned by interceptors
+ * that declare its result as cacheable
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class CacheableInterceptorTest implements CacheableDataInterceptor {
+
+	private boolean cacheable;
+	private int calls;
+
+	@Test
+	public void testCacheableResult() {
+		cacheable = true;
+		List<Object> lst = marshallOrders();
+		// the class of the wrapper is resolved just once
+		assertEquals(1, calls);
+		assertEquals(3, lst.size());
+	}
+
+	@Test
+	public void testNotCacheableResult() {
+		cacheable = false;
+		List<Object> lst = marshallOrders();
+		// the interceptor is called for every object
+		assertEquals(3, calls);
+		assertEquals(3, lst.size());
+	}
+
+	/**
+	 * Marshall and unmarshall a list of order wrappers
+	 * @return the list of objects unmarshalled
+	 */
+	protected List<Object> marshallOrders() {
+		StreamContext context = ContextUtil.createContext("src/test/resources/order-schema-list.xml");
+		context.addInterceptor(this);
+
+		List<Order> orders = new ArrayList<Order>();
+		for (int i = 1; i <= 3; i++) {
+			Order order = new OrderWrapper();
+			order.setId(i);
+			orders.add(order);
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataMarshaller m = context.createMarshaller(StreamFileTypeXML.class);
+		m.marshall(orders, out);
+
+		DataUnmarshaller um = context.createUnmarshaller(StreamFileTypeXML.class);
+		return (List<Object>)um.unmarshall(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Object newObject(Class objectType, Map<String, Object> params) {
+		return null;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Class getObjectClass(Object obj) {
+		if (obj.getClass() == OrderWrapper.class) {
+			calls++;
+			return Order.class;
+		}
+		return null;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public boolean isObjectClassCacheable(Class objectClass) {
+		return cacheable;
+	}
+}
@@ -0,0 +1,193 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataMarshaller;
+import com.rmemoria.datastream.DataStreamCheckpoint;
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.ObjectConsumer;
+import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.StreamFileTypeXMLFast;
+import com.rmemoria.datastream.test.model.Order;
+
+/**
+ * Test the checkpoints taken while reading a document, and the resume of the reading from them
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class CheckpointTest {
+
+	private XmlTest xmlTest = new XmlTest();
+
+	/**
+	 * Consumer that keeps the checkpoint of the objects read, failing after a number of objects
+	 */
+	private static class FailingConsumer implements ObjectConsumer {
+		private DataUnmarshaller um;
+		private int failAt;
+		private List<Order> orders = new ArrayList<Order>();
+		private DataStreamCheckpoint checkpoint;
+
+		public FailingConsumer(DataUnmarshaller um, int failAt) {
+			this.um = um;
+			this.failAt = failAt;
+		}
+
+		@Override
+		public void onNewObject(Object object) {
+			if (orders.size() == failAt) {
+				throw new IllegalStateException("Failure simulated");
+			}
+			orders.add((Order)object);
+			checkpoint = um.getCheckpoint();
+		}
+
+		@Override
+		public void startObjectReading(Class objectClass) {
+		}
+	}
+
+	@Test
+	public void testResume() throws IOException {
+		File file = new File("target/test-checkpoint.xml");
+		List<Order> orders = marshall(file);
+
+		DataUnmarshaller um = xmlTest.getContextCollection().createUnmarshaller(StreamFileTypeXMLFast.class);
+		FailingConsumer consumer = new FailingConsumer(um, 4);
+		try {
+			um.unmarshall(file, consumer);
+			fail("Failure expected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		DataStreamCheckpoint checkpoint = consumer.checkpoint;
+		assertNotNull(checkpoint);
+		assertEquals(4, checkpoint.getObjectCount());
+
+		// resume from the checkpoint, failing again
+		consumer = new FailingConsumer(um, 2);
+		try {
+			um.unmarshall(file, checkpoint, consumer);
+			fail("Failure expected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertEquals(Integer.valueOf(5), consumer.orders.get(0).getId());
+		assertEquals(Integer.valueOf(6), consumer.orders.get(1).getId());
+		checkpoint = consumer.checkpoint;
+		assertEquals(6, checkpoint.getObjectCount());
+
+		// resume from the second checkpoint until the end, using the SAX parser
+		DataUnmarshaller um2 = xmlTest.getContextCollection().createUnmarshaller(StreamFileTypeXML.class);
+		consumer = new FailingConsumer(um2, -1);
+		um2.unmarshall(file, checkpoint, consumer);
+
+		assertEquals(3, consumer.orders.size());
+		for (int i = 0; i < consumer.orders.size(); i++) {
+			xmlTest.compareOrders(orders.get(i + 6), consumer.orders.get(i));
+		}
+		// SAX parser doesn't report the position of the objects
+		assertNull(consumer.checkpoint);
+	}
+
+	/**
+	 * The checkpoint returned after the reading fails doesn't include the object
+	 * the consumer failed to receive
+	 */
+	@Test
+	public void testCheckpointAfterFailure() throws IOException {
+		File file = new File("target/test-checkpoint.xml");
+		List<Order> orders = marshall(file);
+
+		DataUnmarshaller um = xmlTest.getContextCollection().createUnmarshaller(StreamFileTypeXMLFast.class);
+		FailingConsumer consumer = new FailingConsumer(um, 2);
+		try {
+			um.unmarshall(file, consumer);
+			fail("Failure expected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		DataStreamCheckpoint checkpoint = um.getCheckpoint();
+		assertEquals(2, checkpoint.getObjectCount());
+
+		// resume from the checkpoint, failing again
+		consumer = new FailingConsumer(um, 3);
+		try {
+			um.unmarshall(file, checkpoint, consumer);
+			fail("Failure expected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertEquals(Integer.valueOf(3), consumer.orders.get(0).getId());
+		checkpoint = um.getCheckpoint();
+		assertEquals(5, checkpoint.getObjectCount());
+
+		// resume from the second checkpoint until the end
+		consumer = new FailingConsumer(um, -1);
+		um.unmarshall(file, checkpoint, consumer);
+
+		assertEquals(4, consumer.orders.size());
+		for (int i = 0; i < consumer.orders.size(); i++) {
+			xmlTest.compareOrders(orders.get(i + 5), consumer.orders.get(i));
+		}
+	}
+
+	/**
+	 * The offset is not applied again when the reading is resumed
+	 */
+	@Test
+	public void testResumeWithOffset() throws IOException {
+		File file = new File("target/test-checkpoint.xml");
+		List<Order> orders = marshall(file);
+
+		DataUnmarshaller um = xmlTest.getContextCollection().createUnmarshaller(StreamFileTypeXMLFast.class);
+		um.setOffset(2);
+		FailingConsumer consumer = new FailingConsumer(um, 1);
+		try {
+			um.unmarshall(file, consumer);
+			fail("Failure expected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertEquals(Integer.valueOf(3), consumer.orders.get(0).getId());
+
+		consumer = new FailingConsumer(um, -1);
+		um.unmarshall(file, um.getCheckpoint(), consumer);
+		assertEquals(6, consumer.orders.size());
+		for (int i = 0; i < consumer.orders.size(); i++) {
+			xmlTest.compareOrders(orders.get(i + 3), consumer.orders.get(i));
+		}
+	}
+
+	/**
+	 * Write the orders to the file, returning the orders written
+	 */
+	protected List<Order> marshall(File file) throws IOException {
+		StreamContext context = xmlTest.getContextCollection();
+		List<Order> orders = xmlTest.createCollectionModel();
+		DataMarshaller m = context.createMarshaller(StreamFileTypeXML.class);
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			m.marshall(orders, out);
+		} finally {
+			out.close();
+		}
+		return orders;
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataConverter;
+import com.rmemoria.datastream.DataMarshaller;
+import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.impl.DefaultConverters;
+import com.rmemoria.datastream.test.model.Sensor;
+
+/**
+ * Test the conversion of values, done by the default converter and by the
+ * primitive properties written with no boxing
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class ConverterTest {
+
+	/**
+	 * Integer numbers written in a buffer must be the same as the ones converted to string
+	 */
+	@Test
+	public void testConvertToChars() {
+		DefaultConverters conv = new DefaultConverters();
+		char[] buf = new char[20];
+		long[] values = {0, 7, -7, 10, -10, 1234567890123L, Integer.MAX_VALUE, Integer.MIN_VALUE,
+				Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1};
+		for (long value: values) {
+			int len = conv.convertToChars(value, buf);
+			assertEquals(Long.toString(value), new String(buf, 0, len));
+		}
+	}
+
+	/**
+	 * Primitive properties, declared as elements and as attributes, are written
+	 * with the same text of the boxed values
+	 */
+	@Test
+	public void testPrimitiveValues() throws UnsupportedEncodingException {
+		StreamContext context = ContextUtil.createContext("src/test/resources/field-access-schema.xml");
+		String xml = marshall(context, new Sensor(-1000L, 1, "Temperature", 21.5, true, 'C'));
+
+		assertTrue(xml.contains("serial=\"-1000\""));
+		assertTrue(xml.contains("<value>21.5</value>"));
+		assertTrue(xml.contains("<active>1</active>"));
+		assertTrue(xml.contains("<unit>C</unit>"));
+	}
+
+	/**
+	 * A converter registered for a primitive type is used instead of the primitive
+	 * accessors, both in elements and in attributes
+	 */
+	@Test
+	public void testConverterPrecedence() throws UnsupportedEncodingException {
+		StreamContext context = ContextUtil.createContext("src/test/resources/field-access-schema.xml");
+		DataConverter conv = new DataConverter() {
+			@Override
+			public String convertToString(Object obj) {
+				return "#" + obj;
+			}
+
+			@Override
+			public Object convertFromString(String s, Class classType) {
+				return null;
+			}
+		};
+		context.setConverter(Long.class, conv);
+		context.setConverter(Double.class, conv);
+
+		String xml = marshall(context, new Sensor(1000L, 1, "Temperature", 21.5, true, 'C'));
+		assertTrue(xml.contains("serial=\"#1000\""));
+		assertTrue(xml.contains("<value>#21.5</value>"));
+		// types with no converter registered are still written by the primitive accessors
+		assertTrue(xml.contains("<unit>C</unit>"));
+	}
+
+	/**
+	 * Serialize a sensor as the single object of the collection
+	 * @param context the context of the schema
+	 * @param sensor the object to serialize
+	 * @return the XML document
+	 */
+	protected String marshall(StreamContext context, Sensor sensor) throws UnsupportedEncodingException {
+		List<Sensor> lst = new ArrayList<Sensor>();
+		lst.add(sensor);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataMarshaller m = context.createMarshaller(StreamFileTypeXML.class);
+		m.marshall(lst, out);
+		return new String(out.toByteArray(), "UTF-8");
+	}
+}
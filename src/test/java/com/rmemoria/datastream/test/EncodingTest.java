@@ -0,0 +1,77 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataMarshaller;
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileType;
+import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.test.model.Order;
+
+/**
+ * Test the reading of documents in different encodings, detected by the
+ * byte order mark and by the XML declaration
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class EncodingTest {
+
+	private static final String NAME = "José Ação\r\nLtda";
+
+	private XmlTest xmlTest = new XmlTest();
+
+	@Test
+	public void testDeclaredEncoding() throws UnsupportedEncodingException {
+		String doc = createDocument().replace("<?xml version=\"1.0\" ?>", "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>");
+		checkDocument(doc.getBytes("ISO-8859-1"));
+	}
+
+	@Test
+	public void testByteOrderMark() throws UnsupportedEncodingException {
+		String doc = createDocument();
+		// UTF-8 with a byte order mark
+		byte[] data = doc.getBytes("UTF-8");
+		byte[] bom = new byte[data.length + 3];
+		bom[0] = (byte)0xEF;
+		bom[1] = (byte)0xBB;
+		bom[2] = (byte)0xBF;
+		System.arraycopy(data, 0, bom, 3, data.length);
+		checkDocument(bom);
+
+		// UTF-16, written with a byte order mark
+		checkDocument(doc.getBytes("UTF-16"));
+	}
+
+	/**
+	 * Check if the document is read by all unmarshallers
+	 */
+	protected void checkDocument(byte[] data) {
+		for (Class<? extends StreamFileType> type: XmlTest.SEQUENTIAL_FILE_TYPES) {
+			DataUnmarshaller um = xmlTest.getContextSingleObject().createUnmarshaller(type);
+			Order order = (Order)um.unmarshall(new ByteArrayInputStream(data));
+			assertEquals(type.getSimpleName(), "José Ação\nLtda", order.getCustomer().getName());
+		}
+	}
+
+	/**
+	 * Create a document with a single order
+	 */
+	protected String createDocument() throws UnsupportedEncodingException {
+		StreamContext context = xmlTest.getContextSingleObject();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataMarshaller m = context.createMarshaller(StreamFileTypeXML.class);
+		m.marshall(xmlTest.createModel(1, NAME), out);
+		return new String(out.toByteArray(), "UTF-8");
+	}
+}
@@ -0,0 +1,205 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataMarshaller;
+import com.rmemoria.datastream.DataPullUnmarshaller;
+import com.rmemoria.datastream.DataStreamException;
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.StreamFileTypeXMLFast;
+import com.rmemoria.datastream.impl.SymbolTable;
+import com.rmemoria.datastream.test.model.Order;
+
+/**
+ * Test the unmarshaller that reads the documents using the byte level tokenizer
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class FastTokenizerTest {
+
+	private static final String DOCUMENT = "<?xml version=\"1.0\" encoding=\"%s\"?>\r\n" +
+			"%s<!-- list of orders -->\r\n" +
+			"<order id='5'><?app ignored?><customer id=\"1\">" +
+			"<name>José &amp; <![CDATA[<Sons>]]> &#65;&#x42;\r\nLtda</name>" +
+			"<email>customer@test.com</email></customer>" +
+			"<items><item product=\"123\"><quantity>10</quantity><unitPrice>1.5</unitPrice></item></items>" +
+			"<discount>1.0</discount><status>NEW</status></order>\r\n";
+
+	private XmlTest xmlTest = new XmlTest();
+
+	/**
+	 * Read a collection written by the marshaller
+	 */
+	@Test
+	public void testCollection() {
+		StreamContext context = xmlTest.getContextCollection();
+		List<Order> lst = xmlTest.createCollectionModel();
+		lst.get(0).getCustomer().setName("João & <Filhos> 😀");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataMarshaller m = context.createMarshaller(StreamFileTypeXML.class);
+		m.marshall(lst, out);
+
+		DataPullUnmarshaller um = (DataPullUnmarshaller)context.createUnmarshaller(StreamFileTypeXMLFast.class);
+		List<Order> lst2 = (List<Order>)um.unmarshall(new ByteArrayInputStream(out.toByteArray()));
+
+		assertEquals(lst.size(), lst2.size());
+		for (int i = 0; i < lst.size(); i++) {
+			xmlTest.compareOrders(lst.get(i), lst2.get(i));
+		}
+	}
+
+	/**
+	 * Read a document with comments, processing instructions, CDATA and references,
+	 * comparing the result with the one read by the SAX parser
+	 */
+	@Test
+	public void testDocumentContent() throws UnsupportedEncodingException {
+		byte[] data = String.format(DOCUMENT, "UTF-8", "").getBytes("UTF-8");
+		Order order = (Order)unmarshall(StreamFileTypeXMLFast.class, data);
+		Order order2 = (Order)unmarshall(StreamFileTypeXML.class, data);
+
+		assertNotNull(order);
+		assertEquals("José & <Sons> AB\nLtda", order.getCustomer().getName());
+		assertEquals(order2.getCustomer().getName(), order.getCustomer().getName());
+		assertEquals(order2.getId(), order.getId());
+		assertEquals(1, order.getItems().size());
+		assertEquals(order2.getStatus(), order.getStatus());
+	}
+
+	/**
+	 * Documents out of the subset supported by the tokenizer are read by the JDK parser
+	 */
+	@Test
+	public void testFallback() throws UnsupportedEncodingException {
+		byte[] data = String.format(DOCUMENT, "ISO-8859-1", "").getBytes("ISO-8859-1");
+		Order order = (Order)unmarshall(StreamFileTypeXMLFast.class, data);
+		assertEquals("José & <Sons> AB\nLtda", order.getCustomer().getName());
+
+		data = String.format(DOCUMENT, "UTF-8", "<!DOCTYPE order>").getBytes("UTF-8");
+		order = (Order)unmarshall(StreamFileTypeXMLFast.class, data);
+		assertEquals("José & <Sons> AB\nLtda", order.getCustomer().getName());
+	}
+
+	/**
+	 * A document type declaration after a comment longer than the buffer read to check
+	 * the prolog is still found, and the document is read by the JDK parser
+	 */
+	@Test
+	public void testLongProlog() throws UnsupportedEncodingException {
+		StringBuilder comment = new StringBuilder("<!-- ");
+		for (int i = 0; i < 7000; i++) {
+			comment.append("0123456789");
+		}
+		comment.append(" -->");
+		byte[] data = String.format(DOCUMENT, "UTF-8", comment + "<!DOCTYPE order>").getBytes("UTF-8");
+		Order order = (Order)unmarshall(StreamFileTypeXMLFast.class, data);
+		assertEquals("José & <Sons> AB\nLtda", order.getCustomer().getName());
+	}
+
+	/**
+	 * A malformed document must raise an exception
+	 */
+	@Test(expected=DataStreamException.class)
+	public void testMalformedDocument() throws UnsupportedEncodingException {
+		byte[] data = "<order id=\"1\"><customer></order>".getBytes("UTF-8");
+		unmarshall(StreamFileTypeXMLFast.class, data);
+	}
+
+	/**
+	 * Character references and UTF-8 sequences of characters not allowed in XML must raise an exception
+	 */
+	@Test
+	public void testInvalidCharacters() throws UnsupportedEncodingException {
+		for (String ref: Arrays.asList("&#-65;", "&#+65;", "&#x110000;", "&#0;", "&#xD800;", "&#xFFFE;")) {
+			byte[] data = String.format(DOCUMENT, "UTF-8", "").replace("&#65;", ref).getBytes("UTF-8");
+			checkMalformed(data);
+		}
+
+		byte[] doc = String.format(DOCUMENT, "UTF-8", "").getBytes("UTF-8");
+		int index = new String(doc, "ISO-8859-1").indexOf("Ltda");
+		// overlong '/', a surrogate and a code point after U+10FFFF
+		for (byte[] seq: new byte[][] {{(byte)0xC0, (byte)0xAF}, {(byte)0xED, (byte)0xA0, (byte)0x80},
+				{(byte)0xF4, (byte)0x90, (byte)0x80, (byte)0x80}}) {
+			byte[] data = Arrays.copyOf(doc, doc.length);
+			System.arraycopy(seq, 0, data, index, seq.length);
+			checkMalformed(data);
+		}
+	}
+
+	/**
+	 * Check if the document is rejected by the tokenizer
+	 * @param data the content of the document
+	 */
+	protected void checkMalformed(byte[] data) {
+		try {
+			unmarshall(StreamFileTypeXMLFast.class, data);
+			fail("Malformed document expected");
+		} catch (DataStreamException e) {
+			assertTrue(e.getMessage().contains("Malformed XML"));
+		}
+	}
+
+	/**
+	 * Names not declared in the schema are kept in the symbol table just until its limit,
+	 * while names of the schema are always returned from the table
+	 */
+	@Test
+	public void testSymbolTableLimit() throws UnsupportedEncodingException {
+		SymbolTable symbols = new SymbolTable();
+		String order = new String("order");
+		symbols.add(order);
+		for (int i = 0; i < 10000; i++) {
+			byte[] name = ("element" + i).getBytes("UTF-8");
+			assertEquals("element" + i, symbols.lookup(name, 0, name.length));
+		}
+		byte[] name = "element9999".getBytes("UTF-8");
+		assertNotSame(symbols.lookup(name, 0, name.length), symbols.lookup(name, 0, name.length));
+
+		name = "order".getBytes("UTF-8");
+		assertSame(order, symbols.lookup(name, 0, name.length));
+
+		// documents with names out of the table are still read
+		StringBuilder doc = new StringBuilder("<order id=\"1\">");
+		for (int i = 0; i < 5000; i++) {
+			doc.append("<x").append(i).append("></x").append(i).append(">");
+		}
+		doc.append("</order>");
+		DataUnmarshaller um = xmlTest.getContextSingleObject().createUnmarshaller(StreamFileTypeXMLFast.class);
+		um.setTolerant(true);
+		for (int i = 0; i < 2; i++) {
+			Order o = (Order)um.unmarshall(new ByteArrayInputStream(doc.toString().getBytes("UTF-8")));
+			assertEquals(Integer.valueOf(1), o.getId());
+		}
+	}
+
+	/**
+	 * Unmarshall the document using the given file type
+	 * @param type the file type
+	 * @param data the content of the document
+	 * @return the object read
+	 */
+	protected Object unmarshall(Class<? extends StreamFileTypeXML> type, byte[] data) {
+		DataUnmarshaller um = xmlTest.getContextSingleObject().createUnmarshaller(type);
+		return um.unmarshall(new ByteArrayInputStream(data));
+	}
+}
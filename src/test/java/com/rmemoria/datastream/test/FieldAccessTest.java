@@ -0,0 +1,66 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataMarshaller;
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.test.model.Sensor;
+
+/**
+ * Test the serialization of objects with no get and set methods, using the
+ * field access type declared in the object graph
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class FieldAccessTest {
+
+	@Test
+	public void testFieldAccess() throws IOException {
+		StreamContext context = ContextUtil.createContext("src/test/resources/field-access-schema.xml");
+
+		List<Sensor> lst = new ArrayList<Sensor>();
+		lst.add(new Sensor(1000L, 1, "Temperature", 21.5, true, 'C'));
+		lst.add(new Sensor(2000L, 2, "Humidity", 60.25, false, '%'));
+
+		File file = new File("target/field-access.xml");
+		FileOutputStream out = new FileOutputStream(file);
+		DataMarshaller m = context.createMarshaller(StreamFileTypeXML.class);
+		m.marshall(lst, out);
+		out.close();
+
+		FileInputStream fin = new FileInputStream(file);
+		DataUnmarshaller um = context.createUnmarshaller(StreamFileTypeXML.class);
+		List<Sensor> lst2 = (List<Sensor>)um.unmarshall(fin);
+		fin.close();
+
+		assertEquals(lst.size(), lst2.size());
+		for (int i = 0; i < lst.size(); i++) {
+			Sensor s1 = lst.get(i);
+			Sensor s2 = lst2.get(i);
+			assertEquals(s1.serial(), s2.serial());
+			assertEquals(s1.id(), s2.id());
+			assertEquals(s1.name(), s2.name());
+			assertEquals(s1.value(), s2.value(), 0.001);
+			assertEquals(s1.active(), s2.active());
+			assertEquals(s1.unit(), s2.unit());
+			// transient fields are not serialized
+			assertNull(s2.description());
+		}
+	}
+}
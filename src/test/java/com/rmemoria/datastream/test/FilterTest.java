@@ -0,0 +1,73 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.ObjectFilter;
+import com.rmemoria.datastream.StreamFileType;
+import com.rmemoria.datastream.test.model.Order;
+
+/**
+ * Test the filter of objects by the attributes of its element
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class FilterTest {
+
+	private XmlTest xmlTest = new XmlTest();
+
+	/**
+	 * Accept just the orders with an even id
+	 */
+	private ObjectFilter evenFilter = new ObjectFilter() {
+		@Override
+		public boolean accept(Class objectClass, Map<String, String> attributes) {
+			assertEquals(Order.class, objectClass);
+			return Integer.parseInt(attributes.get("id")) % 2 == 0;
+		}
+	};
+
+	@Test
+	public void testFilter() {
+		byte[] data = xmlTest.marshallCollection(xmlTest.createCollectionModel());
+		for (Class<? extends StreamFileType> type: XmlTest.FILE_TYPES) {
+			DataUnmarshaller um = xmlTest.getContextCollection().createUnmarshaller(type);
+			um.setFilter(evenFilter);
+			List<Order> lst = (List<Order>)um.unmarshall(new ByteArrayInputStream(data));
+
+			assertEquals(4, lst.size());
+			for (int i = 0; i < lst.size(); i++) {
+				assertEquals(Integer.valueOf((i + 1) * 2), lst.get(i).getId());
+			}
+		}
+	}
+
+	/**
+	 * Offset and limit are applied to the objects accepted by the filter
+	 */
+	@Test
+	public void testFilterWithOffset() {
+		byte[] data = xmlTest.marshallCollection(xmlTest.createCollectionModel());
+		for (Class<? extends StreamFileType> type: XmlTest.FILE_TYPES) {
+			DataUnmarshaller um = xmlTest.getContextCollection().createUnmarshaller(type);
+			um.setFilter(evenFilter);
+			um.setOffset(1);
+			um.setLimit(2);
+			List<Order> lst = (List<Order>)um.unmarshall(new ByteArrayInputStream(data));
+
+			assertEquals(2, lst.size());
+			assertEquals(Integer.valueOf(4), lst.get(0).getId());
+			assertEquals(Integer.valueOf(6), lst.get(1).getId());
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataMarshaller;
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.test.model.Coordinate;
+import com.rmemoria.datastream.test.model.Measure;
+
+/**
+ * Test the creation of immutable objects by its constructor and by a static factory
+ * method, using the arguments declared in the object graph
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class ImmutableObjectTest {
+
+	@Test
+	public void testConstructorArgs() throws IOException {
+		StreamContext context = ContextUtil.createContext("src/test/resources/immutable-schema.xml");
+
+		List<Object> lst = new ArrayList<Object>();
+		Coordinate c = new Coordinate("Home", -15.79, -47.88);
+		c.setDescription("Description of the place");
+		lst.add(c);
+		lst.add(Measure.of("kg", 75));
+		lst.add(new Coordinate("Origin", 0, 0));
+		lst.add(new Coordinate(null, 10.5, 20.5));
+
+		File file = new File("target/immutable.xml");
+		FileOutputStream out = new FileOutputStream(file);
+		DataMarshaller m = context.createMarshaller(StreamFileTypeXML.class);
+		m.marshall(lst, out);
+		out.close();
+
+		FileInputStream fin = new FileInputStream(file);
+		DataUnmarshaller um = context.createUnmarshaller(StreamFileTypeXML.class);
+		List<Object> lst2 = (List<Object>)um.unmarshall(fin);
+		fin.close();
+
+		assertEquals(lst.size(), lst2.size());
+
+		Coordinate c2 = (Coordinate)lst2.get(0);
+		assertEquals("Home", c2.getName());
+		assertEquals(-15.79, c2.getLatitude(), 0.0001);
+		assertEquals(-47.88, c2.getLongitude(), 0.0001);
+		// properties not passed to the constructor are set by its set method
+		assertEquals("Description of the place", c2.getDescription());
+
+		Measure ms = (Measure)lst2.get(1);
+		assertEquals("kg", ms.getUnit());
+		assertEquals(75, ms.getValue());
+
+		c2 = (Coordinate)lst2.get(2);
+		assertEquals("Origin", c2.getName());
+		assertEquals(0, c2.getLatitude(), 0.0001);
+
+		c2 = (Coordinate)lst2.get(3);
+		assertNull(c2.getName());
+		assertEquals(10.5, c2.getLatitude(), 0.0001);
+		assertEquals(20.5, c2.getLongitude(), 0.0001);
+	}
+}
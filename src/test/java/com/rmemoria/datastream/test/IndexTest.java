@@ -0,0 +1,201 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataMarshaller;
+import com.rmemoria.datastream.DataStreamCheckpoint;
+import com.rmemoria.datastream.DataStreamIndex;
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.ObjectConsumer;
+import com.rmemoria.datastream.ObjectFilter;
+import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileType;
+import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.StreamFileTypeXMLFast;
+import com.rmemoria.datastream.test.model.Order;
+
+/**
+ * Test the generation of the index of the objects in a document, and the reading
+ * of objects directly from their position in the document
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class IndexTest {
+
+	private XmlTest xmlTest = new XmlTest();
+
+	@Test
+	public void testIndex() throws IOException {
+		File file = new File("target/test-index.xml");
+		List<Order> orders = xmlTest.createCollectionModel();
+		DataStreamIndex index = marshall(file, orders);
+
+		assertEquals(9, index.size());
+		assertEquals(4, index.indexOf("5"));
+		assertEquals(-1, index.indexOf("50"));
+
+		for (Class<? extends StreamFileType> type: XmlTest.FILE_TYPES) {
+			DataUnmarshaller um = xmlTest.getContextCollection().createUnmarshaller(type);
+
+			// read a single object by its key
+			Order order = (Order)um.unmarshall(file, index, "5");
+			xmlTest.compareOrders(orders.get(4), order);
+			assertNull(um.unmarshall(file, index, "50"));
+
+			// offset and filter don't change the object found by its key
+			um.setOffset(2);
+			um.setFilter(new ObjectFilter() {
+				@Override
+				public boolean accept(Class objectClass, Map<String, String> attributes) {
+					return false;
+				}
+			});
+			order = (Order)um.unmarshall(file, index, "5");
+			xmlTest.compareOrders(orders.get(4), order);
+			um.setOffset(0);
+			um.setFilter(null);
+
+			// read a range of objects
+			um.setLimit(2);
+			List<Order> lst = read(um, file, index, 3);
+			assertEquals(2, lst.size());
+			assertEquals(Integer.valueOf(4), lst.get(0).getId());
+			assertEquals(Integer.valueOf(5), lst.get(1).getId());
+
+			// read until the end of the document
+			um.setLimit(0);
+			lst = read(um, file, index, 6);
+			assertEquals(3, lst.size());
+			for (int i = 0; i < lst.size(); i++) {
+				xmlTest.compareOrders(orders.get(i + 6), lst.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testIndexFormat() throws IOException {
+		DataStreamIndex index = marshall(new File("target/test-index.xml"), xmlTest.createCollectionModel());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		index.write(out);
+		DataStreamIndex index2 = DataStreamIndex.read(new ByteArrayInputStream(out.toByteArray()));
+
+		assertEquals(index.size(), index2.size());
+		for (int i = 0; i < index.size(); i++) {
+			assertEquals(index.getOffset(i), index2.getOffset(i));
+			assertEquals(index.getKey(i), index2.getKey(i));
+		}
+	}
+
+	/**
+	 * Checkpoints taken while reading from an entry of the index refer to the positions in the file
+	 */
+	@Test
+	public void testCheckpoint() throws IOException {
+		File file = new File("target/test-index.xml");
+		List<Order> orders = xmlTest.createCollectionModel();
+		DataStreamIndex index = marshall(file, orders);
+
+		final DataUnmarshaller um = xmlTest.getContextCollection().createUnmarshaller(StreamFileTypeXMLFast.class);
+		final List<DataStreamCheckpoint> checkpoints = new ArrayList<DataStreamCheckpoint>();
+		um.setLimit(2);
+		um.unmarshall(file, index, 3, new ObjectConsumer() {
+			@Override
+			public void onNewObject(Object object) {
+				checkpoints.add(um.getCheckpoint());
+			}
+
+			@Override
+			public void startObjectReading(Class objectClass) {
+			}
+		});
+		DataStreamCheckpoint checkpoint = checkpoints.get(1);
+		// the objects before the entry of the index are counted
+		assertTrue(checkpoint.getObjectCount() > 3);
+
+		um.setLimit(0);
+		final List<Order> lst = new ArrayList<Order>();
+		um.unmarshall(file, checkpoint, new ObjectConsumer() {
+			@Override
+			public void onNewObject(Object object) {
+				lst.add((Order)object);
+			}
+
+			@Override
+			public void startObjectReading(Class objectClass) {
+			}
+		});
+		assertEquals(orders.size() - checkpoint.getObjectCount(), lst.size());
+		for (int i = 0; i < lst.size(); i++) {
+			xmlTest.compareOrders(orders.get(i + (int)checkpoint.getObjectCount()), lst.get(i));
+		}
+	}
+
+	/**
+	 * The output stream of the document is flushed just when the document is finished
+	 */
+	@Test
+	public void testFlush() {
+		final int[] flushes = new int[1];
+		ByteArrayOutputStream out = new ByteArrayOutputStream() {
+			@Override
+			public void flush() {
+				flushes[0]++;
+			}
+		};
+		DataMarshaller m = xmlTest.getContextCollection().createMarshaller(StreamFileTypeXML.class);
+		m.setIndexOutput(new ByteArrayOutputStream(), "id");
+		m.marshall(xmlTest.createCollectionModel(), out);
+		assertEquals(1, flushes[0]);
+	}
+
+	protected List<Order> read(DataUnmarshaller um, File file, DataStreamIndex index, int first) {
+		final List<Order> lst = new ArrayList<Order>();
+		um.unmarshall(file, index, first, new ObjectConsumer() {
+			@Override
+			public void onNewObject(Object object) {
+				lst.add((Order)object);
+			}
+
+			@Override
+			public void startObjectReading(Class objectClass) {
+			}
+		});
+		return lst;
+	}
+
+	/**
+	 * Write the orders to the file, returning its index
+	 */
+	protected DataStreamIndex marshall(File file, List<Order> orders) throws IOException {
+		StreamContext context = xmlTest.getContextCollection();
+		ByteArrayOutputStream indexOut = new ByteArrayOutputStream();
+		DataMarshaller m = context.createMarshaller(StreamFileTypeXML.class);
+		m.setIndexOutput(indexOut, "id");
+
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			m.marshall(orders, out);
+		} finally {
+			out.close();
+		}
+		return DataStreamIndex.read(new ByteArrayInputStream(indexOut.toByteArray()));
+	}
+}
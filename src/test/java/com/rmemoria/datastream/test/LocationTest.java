@@ -0,0 +1,101 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataStreamException;
+import com.rmemoria.datastream.DataStreamLocation;
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.StreamFileType;
+import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.StreamFileTypeXMLFast;
+
+/**
+ * Test the location in the document reported by the exceptions raised when reading it
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class LocationTest {
+
+	private static final String DOCUMENT = "<?xml version=\"1.0\" ?>\n" +
+			"<order id=\"7\"><skipped/>\n" +
+			"<customer id=\"1\"><name>The customer</name>\n" +
+			"<phone>123</phone></customer></order>";
+
+	private XmlTest xmlTest = new XmlTest();
+
+	@Test
+	public void testLocation() throws UnsupportedEncodingException {
+		byte[] data = DOCUMENT.replace("<skipped/>", "").getBytes("UTF-8");
+		for (Class<? extends StreamFileType> type: XmlTest.SEQUENTIAL_FILE_TYPES) {
+			DataStreamLocation loc = readLocation(type, data);
+
+			assertEquals(Arrays.asList("order", "customer", "phone"), loc.getPath());
+			assertEquals(3, loc.getDepth());
+			if (type == StreamFileTypeXMLFast.class) {
+				// the tokenizer reports the position in bytes, just after the start tag
+				assertEquals(DOCUMENT.replace("<skipped/>", "").indexOf("<phone>") + 7, loc.getOffset());
+			}
+			else {
+				assertEquals(4, loc.getLineNumber());
+			}
+		}
+	}
+
+	/**
+	 * Elements skipped by a tolerant unmarshaller are not in the path
+	 */
+	@Test
+	public void testSkippedElement() throws UnsupportedEncodingException {
+		byte[] data = DOCUMENT.replace("<name>", "content<name>").getBytes("UTF-8");
+		for (Class<? extends StreamFileType> type: XmlTest.SEQUENTIAL_FILE_TYPES) {
+			DataUnmarshaller um = xmlTest.getContextSingleObject().createUnmarshaller(type);
+			um.setTolerant(true);
+			try {
+				um.unmarshall(new ByteArrayInputStream(data));
+				fail("Content in a class element must raise an error");
+			} catch (DataStreamException e) {
+				assertEquals(Arrays.asList("order", "customer"), e.getLocation().getPath());
+			}
+		}
+	}
+
+	@Test
+	public void testMessage() throws UnsupportedEncodingException {
+		byte[] data = DOCUMENT.replace("<skipped/>", "").getBytes("UTF-8");
+		try {
+			xmlTest.getContextSingleObject().createUnmarshaller(StreamFileTypeXML.class)
+				.unmarshall(new ByteArrayInputStream(data));
+			fail("Invalid element must raise an error");
+		} catch (DataStreamException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("/order/customer/phone, line 4"));
+		}
+	}
+
+	/**
+	 * Read the document, returning the location of the error raised
+	 */
+	protected DataStreamLocation readLocation(Class<? extends StreamFileType> type, byte[] data) {
+		DataUnmarshaller um = xmlTest.getContextSingleObject().createUnmarshaller(type);
+		try {
+			um.unmarshall(new ByteArrayInputStream(data));
+		} catch (DataStreamException e) {
+			assertNotNull(e.getLocation());
+			return e.getLocation();
+		}
+		fail("Invalid element must raise an error");
+		return null;
+	}
+}
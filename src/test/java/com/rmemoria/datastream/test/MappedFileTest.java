@@ -0,0 +1,52 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataMarshaller;
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileType;
+import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.test.model.Order;
+
+/**
+ * Test the unmarshalling of files mapped in memory
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class MappedFileTest {
+
+	private XmlTest xmlTest = new XmlTest();
+
+	@Test
+	public void testUnmarshallFile() throws IOException {
+		StreamContext context = xmlTest.getContextCollection();
+		List<Order> lst = xmlTest.createCollectionModel();
+
+		File file = new File("target/mapped-test.xml");
+		FileOutputStream out = new FileOutputStream(file);
+		DataMarshaller m = context.createMarshaller(StreamFileTypeXML.class);
+		m.marshall(lst, out);
+		out.close();
+
+		for (Class<? extends StreamFileType> type: XmlTest.FILE_TYPES) {
+			DataUnmarshaller um = context.createUnmarshaller(type);
+			List<Order> lst2 = (List<Order>)um.unmarshall(file);
+			assertEquals(lst.size(), lst2.size());
+			for (int i = 0; i < lst.size(); i++) {
+				xmlTest.compareOrders(lst.get(i), lst2.get(i));
+			}
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.ObjectConsumer;
+import com.rmemoria.datastream.StreamFileType;
+import com.rmemoria.datastream.test.model.Order;
+
+/**
+ * Test the offset and limit of objects read, and the interruption of reading by the consumer
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class OffsetLimitTest {
+
+	private XmlTest xmlTest = new XmlTest();
+
+	@Test
+	public void testOffsetLimit() {
+		byte[] data = xmlTest.marshallCollection(xmlTest.createCollectionModel());
+		for (Class<? extends StreamFileType> type: XmlTest.FILE_TYPES) {
+			DataUnmarshaller um = xmlTest.getContextCollection().createUnmarshaller(type);
+			um.setOffset(3);
+			um.setLimit(4);
+			List<Order> lst = (List<Order>)um.unmarshall(new ByteArrayInputStream(data));
+
+			assertEquals(4, lst.size());
+			for (int i = 0; i < lst.size(); i++) {
+				assertEquals(Integer.valueOf(i + 4), lst.get(i).getId());
+			}
+		}
+	}
+
+	/**
+	 * Once the limit is reached, the rest of the document must not be read
+	 */
+	@Test
+	public void testLimitStopsReading() {
+		byte[] data = xmlTest.marshallCollection(xmlTest.createCollectionModel());
+		// the second half of the document is missing
+		byte[] half = Arrays.copyOf(data, data.length / 2);
+		for (Class<? extends StreamFileType> type: XmlTest.SEQUENTIAL_FILE_TYPES) {
+			DataUnmarshaller um = xmlTest.getContextCollection().createUnmarshaller(type);
+			um.setLimit(2);
+			List<Order> lst = (List<Order>)um.unmarshall(new ByteArrayInputStream(half));
+			assertEquals(2, lst.size());
+		}
+	}
+
+	@Test
+	public void testStop() {
+		byte[] data = xmlTest.marshallCollection(xmlTest.createCollectionModel());
+		for (Class<? extends StreamFileType> type: XmlTest.FILE_TYPES) {
+			final DataUnmarshaller um = xmlTest.getContextCollection().createUnmarshaller(type);
+			final List<Object> lst = new ArrayList<Object>();
+			um.unmarshall(new ByteArrayInputStream(data), new ObjectConsumer() {
+				@Override
+				public void onNewObject(Object object) {
+					lst.add(object);
+					if (lst.size() == 2) {
+						um.stop();
+					}
+				}
+
+				@Override
+				public void startObjectReading(Class objectClass) {
+				}
+			});
+			assertEquals(2, lst.size());
+		}
+	}
+}
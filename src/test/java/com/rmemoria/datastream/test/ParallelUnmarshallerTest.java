@@ -0,0 +1,146 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataParallelUnmarshaller;
+import com.rmemoria.datastream.ObjectConsumer;
+import com.rmemoria.datastream.ObjectFilter;
+import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileTypeXMLParallel;
+import com.rmemoria.datastream.test.model.Order;
+
+/**
+ * Test the unmarshaller that reads the objects of a collection in parallel
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class ParallelUnmarshallerTest {
+
+	private XmlTest xmlTest = new XmlTest();
+
+	/**
+	 * Read the objects in the order of the document
+	 */
+	@Test
+	public void testOrdered() {
+		List<Order> lst = createOrders(500);
+		byte[] data = xmlTest.marshallCollection(lst);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			DataParallelUnmarshaller um = createUnmarshaller();
+			um.setExecutor(executor);
+			List<Order> lst2 = (List<Order>)um.unmarshall(new ByteArrayInputStream(data));
+
+			assertEquals(lst.size(), lst2.size());
+			for (int i = 0; i < lst.size(); i++) {
+				xmlTest.compareOrders(lst.get(i), lst2.get(i));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Read the objects as soon as they are available
+	 */
+	@Test
+	public void testUnordered() {
+		List<Order> lst = createOrders(500);
+		byte[] data = xmlTest.marshallCollection(lst);
+
+		DataParallelUnmarshaller um = createUnmarshaller();
+		um.setOrdered(false);
+		final Set<Integer> ids = new HashSet<Integer>();
+		final List<Class> classes = new ArrayList<Class>();
+		um.unmarshall(new ByteArrayInputStream(data), new ObjectConsumer() {
+			@Override
+			public void onNewObject(Object object) {
+				ids.add(((Order)object).getId());
+			}
+
+			@Override
+			public void startObjectReading(Class objectClass) {
+				classes.add(objectClass);
+			}
+		});
+
+		assertEquals(lst.size(), ids.size());
+		assertEquals(lst.size(), classes.size());
+		for (Order order: lst) {
+			assertTrue(ids.contains(order.getId()));
+		}
+	}
+
+	/**
+	 * Read an empty collection
+	 */
+	@Test
+	public void testEmptyCollection() {
+		byte[] data = xmlTest.marshallCollection(new ArrayList<Order>());
+		List<Order> lst = (List<Order>)createUnmarshaller().unmarshall(new ByteArrayInputStream(data));
+		assertEquals(0, lst.size());
+	}
+
+	/**
+	 * Settings changed after a document was read must be used in the next documents
+	 */
+	@Test
+	public void testReuseWithNewSettings() {
+		List<Order> lst = createOrders(100);
+		byte[] data = xmlTest.marshallCollection(lst);
+
+		DataParallelUnmarshaller um = createUnmarshaller();
+		assertEquals(100, ((List<Order>)um.unmarshall(new ByteArrayInputStream(data))).size());
+
+		um.setFilter(new ObjectFilter() {
+			@Override
+			public boolean accept(Class objectClass, Map<String, String> attributes) {
+				return Integer.parseInt(attributes.get("id")) % 2 == 0;
+			}
+		});
+		List<Order> lst2 = (List<Order>)um.unmarshall(new ByteArrayInputStream(data));
+		assertEquals(50, lst2.size());
+		for (Order order: lst2) {
+			assertEquals(0, order.getId() % 2);
+		}
+
+		um.setFilter(null);
+		assertEquals(100, ((List<Order>)um.unmarshall(new ByteArrayInputStream(data))).size());
+	}
+
+	/**
+	 * Create the unmarshaller with small chunks, so the document is split in several chunks
+	 * @return instance of {@link DataParallelUnmarshaller}
+	 */
+	protected DataParallelUnmarshaller createUnmarshaller() {
+		StreamContext context = xmlTest.getContextCollection();
+		DataParallelUnmarshaller um = (DataParallelUnmarshaller)context.createUnmarshaller(StreamFileTypeXMLParallel.class);
+		um.setChunkSize(2048);
+		return um;
+	}
+
+	protected List<Order> createOrders(int count) {
+		List<Order> lst = new ArrayList<Order>();
+		for (int i = 1; i <= count; i++) {
+			lst.add(xmlTest.createModel(i, "Customer " + i));
+		}
+		return lst;
+	}
+}
@@ -0,0 +1,164 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataMarshaller;
+import com.rmemoria.datastream.DataPullUnmarshaller;
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileType;
+import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.StreamFileTypeXMLPull;
+import com.rmemoria.datastream.test.model.Order;
+
+/**
+ * Test the pull unmarshaller, reading objects one at a time
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class PullUnmarshallerTest {
+
+	private XmlTest xmlTest = new XmlTest();
+
+	/**
+	 * Pull all objects from a collection
+	 */
+	@Test
+	public void testPullCollection() {
+		StreamContext context = xmlTest.getContextCollection();
+		List<Order> lst = xmlTest.createCollectionModel();
+		byte[] data = marshall(context, lst);
+
+		DataPullUnmarshaller um = (DataPullUnmarshaller)context.createUnmarshaller(StreamFileTypeXMLPull.class);
+		um.open(new ByteArrayInputStream(data));
+		int count = 0;
+		while (um.hasNext()) {
+			Order order = (Order)um.next();
+			xmlTest.compareOrders(lst.get(count), order);
+			count++;
+		}
+		um.close();
+
+		assertEquals(lst.size(), count);
+	}
+
+	/**
+	 * Stop reading the document after the first object
+	 */
+	@Test
+	public void testStopReading() {
+		StreamContext context = xmlTest.getContextCollection();
+		List<Order> lst = xmlTest.createCollectionModel();
+		byte[] data = marshall(context, lst);
+
+		DataPullUnmarshaller um = (DataPullUnmarshaller)context.createUnmarshaller(StreamFileTypeXMLPull.class);
+		um.open(new ByteArrayInputStream(data));
+		assertTrue(um.hasNext());
+		xmlTest.compareOrders(lst.get(0), (Order)um.next());
+		um.close();
+		assertFalse(um.hasNext());
+
+		// the same unmarshaller can read another document
+		um.open(new ByteArrayInputStream(data));
+		assertTrue(um.hasNext());
+		xmlTest.compareOrders(lst.get(0), (Order)um.next());
+		um.close();
+	}
+
+	/**
+	 * Read the whole document at once using the pull engine
+	 */
+	@Test
+	public void testUnmarshall() {
+		StreamContext context = xmlTest.getContextSingleObject();
+		Order order = xmlTest.createModel(1, "The customer");
+		byte[] data = marshall(context, order);
+
+		DataPullUnmarshaller um = (DataPullUnmarshaller)context.createUnmarshaller(StreamFileTypeXMLPull.class);
+		Order order2 = (Order)um.unmarshall(new ByteArrayInputStream(data));
+		xmlTest.compareOrders(order, order2);
+	}
+
+	/**
+	 * Iterate over the objects of a collection, using the SAX and the pull unmarshallers
+	 */
+	@Test
+	public void testIterator() {
+		StreamContext context = xmlTest.getContextCollection();
+		List<Order> lst = xmlTest.createCollectionModel();
+		byte[] data = marshall(context, lst);
+
+		for (Class<? extends StreamFileType> type: Arrays.asList(StreamFileTypeXML.class, StreamFileTypeXMLPull.class)) {
+			final boolean[] closed = {false};
+			InputStream in = new ByteArrayInputStream(data) {
+				@Override
+				public void close() throws IOException {
+					closed[0] = true;
+				}
+			};
+
+			DataUnmarshaller um = context.createUnmarshaller(type);
+			Iterator<Object> it = um.iterator(in);
+			int count = 0;
+			while (it.hasNext()) {
+				xmlTest.compareOrders(lst.get(count), (Order)it.next());
+				count++;
+				// the stream is closed just after the last object
+				assertFalse(closed[0]);
+			}
+			assertEquals(lst.size(), count);
+			assertTrue(closed[0]);
+		}
+	}
+
+	/**
+	 * Read a document declaring an internal entity in its DTD. The tokenizer of the fast
+	 * engine doesn't support DTDs, so it falls back to the pull engine
+	 */
+	@Test
+	public void testInternalEntity() throws UnsupportedEncodingException {
+		StreamContext context = xmlTest.getContextSingleObject();
+		Order order = xmlTest.createModel(1, "The customer");
+		String doc = new String(marshall(context, order), "UTF-8");
+		doc = doc.replace("?>", "?><!DOCTYPE order [<!ENTITY co \"customer\">]>")
+				.replace(">The customer<", ">The &co;<");
+		assertTrue(doc.contains("&co;"));
+		byte[] data = doc.getBytes("UTF-8");
+
+		for (Class<? extends StreamFileType> type: XmlTest.SEQUENTIAL_FILE_TYPES) {
+			DataUnmarshaller um = context.createUnmarshaller(type);
+			Order order2 = (Order)um.unmarshall(new ByteArrayInputStream(data));
+			xmlTest.compareOrders(order, order2);
+		}
+	}
+
+	/**
+	 * Serialize the object to an array of bytes
+	 * @param context
+	 * @param obj
+	 * @return
+	 */
+	protected byte[] marshall(StreamContext context, Object obj) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataMarshaller m = context.createMarshaller(StreamFileTypeXML.class);
+		m.marshall(obj, out);
+		return out.toByteArray();
+	}
+}
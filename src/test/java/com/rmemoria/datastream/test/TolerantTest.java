@@ -0,0 +1,63 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataStreamException;
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.StreamFileType;
+import com.rmemoria.datastream.StreamFileTypeXMLFast;
+import com.rmemoria.datastream.test.model.Order;
+
+/**
+ * Test the tolerant mode of the unmarshaller, skipping elements not declared in the schema
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class TolerantTest {
+
+	private static final String DOCUMENT = "<?xml version=\"1.0\" ?>" +
+			"<order id=\"7\" foreign=\"x\">" +
+			"<extension vendor='a>b'><data><![CDATA[</data>]]><!-- </extension> --><value>1</value></data><empty/></extension>" +
+			"<customer id=\"1\"><name>The customer</name><orders><order id=\"8\"><status>NEW</status></order></orders>" +
+			"<email>customer@test.com</email></customer>" +
+			"<items><item product=\"123\"><quantity>10</quantity><unitPrice>1.5</unitPrice><notes>any</notes></item></items>" +
+			"<status>NEW</status></order>";
+
+	private XmlTest xmlTest = new XmlTest();
+
+	@Test
+	public void testTolerant() throws UnsupportedEncodingException {
+		for (Class<? extends StreamFileType> type: XmlTest.SEQUENTIAL_FILE_TYPES) {
+			DataUnmarshaller um = xmlTest.getContextSingleObject().createUnmarshaller(type);
+			um.setTolerant(true);
+			Order order = (Order)um.unmarshall(new ByteArrayInputStream(DOCUMENT.getBytes("UTF-8")));
+
+			assertEquals(Integer.valueOf(7), order.getId());
+			assertEquals("The customer", order.getCustomer().getName());
+			assertEquals("customer@test.com", order.getCustomer().getEmail());
+			assertEquals(0, order.getCustomer().getOrders().size());
+			assertEquals(1, order.getItems().size());
+		}
+	}
+
+	@Test
+	public void testNotTolerant() throws UnsupportedEncodingException {
+		DataUnmarshaller um = xmlTest.getContextSingleObject().createUnmarshaller(StreamFileTypeXMLFast.class);
+		try {
+			um.unmarshall(new ByteArrayInputStream(DOCUMENT.getBytes("UTF-8")));
+			fail("Elements not declared must raise an error");
+		} catch (DataStreamException e) {
+			// expected
+		}
+	}
+}
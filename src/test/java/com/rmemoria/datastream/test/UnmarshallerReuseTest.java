@@ -0,0 +1,97 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rmemoria.datastream.DataMarshaller;
+import com.rmemoria.datastream.DataUnmarshaller;
+import com.rmemoria.datastream.ObjectConsumer;
+import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileType;
+import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.StreamFileTypeXMLFast;
+import com.rmemoria.datastream.StreamFileTypeXMLPull;
+import com.rmemoria.datastream.test.model.Order;
+
+/**
+ * Test the reuse of the same unmarshaller to read several documents
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class UnmarshallerReuseTest {
+
+	private XmlTest xmlTest = new XmlTest();
+
+	@Test
+	public void testReuseSAX() {
+		checkReuse(StreamFileTypeXML.class);
+	}
+
+	@Test
+	public void testReusePull() {
+		checkReuse(StreamFileTypeXMLPull.class);
+	}
+
+	@Test
+	public void testReuseFast() {
+		checkReuse(StreamFileTypeXMLFast.class);
+	}
+
+	/**
+	 * Read several documents with the same unmarshaller, alternating between a consumer and
+	 * the list of results, and after a document with an error
+	 * @param type the type of the unmarshaller
+	 */
+	protected void checkReuse(Class<? extends StreamFileType> type) {
+		StreamContext context = xmlTest.getContextCollection();
+		List<Order> lst = xmlTest.createCollectionModel();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataMarshaller m = context.createMarshaller(StreamFileTypeXML.class);
+		m.marshall(lst, out);
+		byte[] data = out.toByteArray();
+
+		DataUnmarshaller um = context.createUnmarshaller(type);
+		for (int i = 0; i < 3; i++) {
+			final List<Object> consumed = new ArrayList<Object>();
+			um.unmarshall(new ByteArrayInputStream(data), new ObjectConsumer() {
+				@Override
+				public void onNewObject(Object object) {
+					consumed.add(object);
+				}
+
+				@Override
+				public void startObjectReading(Class objectClass) {
+				}
+			});
+			assertEquals(lst.size(), consumed.size());
+
+			// objects must not be sent to the consumer of the previous document
+			List<Order> lst2 = (List<Order>)um.unmarshall(new ByteArrayInputStream(data));
+			assertEquals(lst.size(), lst2.size());
+			for (int k = 0; k < lst.size(); k++) {
+				xmlTest.compareOrders(lst.get(k), lst2.get(k));
+			}
+			assertEquals(lst.size(), consumed.size());
+
+			// the unmarshaller must recover from a document interrupted by an error
+			try {
+				um.unmarshall(new ByteArrayInputStream(new String(data, 0, data.length / 2).getBytes()));
+				fail("Incomplete document must raise an error");
+			} catch (RuntimeException e) {
+				// expected
+			}
+		}
+	}
+}
@@ -6,11 +6,13 @@ package com.rmemoria.datastream.test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -21,7 +23,11 @@ import com.rmemoria.datastream.DataUnmarshaller;
 import com.rmemoria.datastream.ObjectConsumer;
 import com.rmemoria.datastream.ObjectProvider;
 import com.rmemoria.datastream.StreamContext;
+import com.rmemoria.datastream.StreamFileType;
 import com.rmemoria.datastream.StreamFileTypeXML;
+import com.rmemoria.datastream.StreamFileTypeXMLFast;
+import com.rmemoria.datastream.StreamFileTypeXMLParallel;
+import com.rmemoria.datastream.StreamFileTypeXMLPull;
 import com.rmemoria.datastream.test.model.Customer;
 import com.rmemoria.datastream.test.model.Item;
 import com.rmemoria.datastream.test.model.Order;
@@ -37,6 +43,18 @@ import com.rmemoria.datastream.test.model.Product;
  */
 public class XmlTest {
 
+	/**
+	 * File types of all unmarshallers, used to check if all of them read a document in the same way
+	 */
+	public static final List<Class<? extends StreamFileType>> FILE_TYPES = Arrays.<Class<? extends StreamFileType>>asList(
+			StreamFileTypeXML.class, StreamFileTypeXMLPull.class, StreamFileTypeXMLFast.class,
+			StreamFileTypeXMLParallel.class);
+
+	/**
+	 * File types of the unmarshallers that read the document in a single thread, from its beginning to its end
+	 */
+	public static final List<Class<? extends StreamFileType>> SEQUENTIAL_FILE_TYPES = FILE_TYPES.subList(0, 3);
+
 	private Order order2;
 	private StreamContext contextSingleObject;
 	private StreamContext contextCollection;
@@ -308,6 +326,18 @@ public class XmlTest {
 		return lst;
 	}
 	
+	/**
+	 * Serialize a list of orders to XML, using the context of the collection
+	 * @param orders the orders to serialize
+	 * @return the content of the XML document
+	 */
+	public byte[] marshallCollection(List<Order> orders) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataMarshaller m = getContextCollection().createMarshaller(StreamFileTypeXML.class);
+		m.marshall(orders, out);
+		return out.toByteArray();
+	}
+
 	/**
 	 * Create an object model to be serialized/deserialized to/from XML
 	 * @param orderid the order id to be set in the object
@@ -0,0 +1,60 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test.model;
+
+/**
+ * Immutable object with no default constructor and no set methods, used to test
+ * the creation of objects passing its values to the constructor
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class Coordinate {
+
+	private final String name;
+	private final double latitude;
+	private final double longitude;
+	private String description;
+
+	public Coordinate(String name, double latitude, double longitude) {
+		this.name = name;
+		this.latitude = latitude;
+		this.longitude = longitude;
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the latitude
+	 */
+	public double getLatitude() {
+		return latitude;
+	}
+
+	/**
+	 * @return the longitude
+	 */
+	public double getLongitude() {
+		return longitude;
+	}
+
+	/**
+	 * @return the description
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * @param description the description to set
+	 */
+	public void setDescription(String description) {
+		this.description = description;
+	}
+}
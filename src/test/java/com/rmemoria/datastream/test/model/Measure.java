@@ -0,0 +1,40 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test.model;
+
+/**
+ * Immutable object created by a static factory method, used to test
+ * the creation of objects by the factory method declared in the schema
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class Measure {
+
+	private final String unit;
+	private final int value;
+
+	private Measure(String unit, int value) {
+		this.unit = unit;
+		this.value = value;
+	}
+
+	public static Measure of(String unit, int value) {
+		return new Measure(unit, value);
+	}
+
+	/**
+	 * @return the unit
+	 */
+	public String getUnit() {
+		return unit;
+	}
+
+	/**
+	 * @return the value
+	 */
+	public int getValue() {
+		return value;
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * 
+ */
+package com.rmemoria.datastream.test.model;
+
+/**
+ * Object with no get and set methods, used to test the direct
+ * field access to its values. Values are read by its record-like accessors
+ * 
+ * @author Ricardo Memoria
+ *
+ */
+public class Sensor {
+
+	private final long serial;
+	private Integer id;
+	private String name;
+	private double value;
+	private boolean active;
+	private char unit;
+	private transient String description;
+
+	public Sensor() {
+		this.serial = 0;
+	}
+
+	public Sensor(long serial, Integer id, String name, double value, boolean active, char unit) {
+		this.serial = serial;
+		this.id = id;
+		this.name = name;
+		this.value = value;
+		this.active = active;
+		this.unit = unit;
+		this.description = name + " sensor";
+	}
+
+	public long serial() {
+		return serial;
+	}
+
+	public Integer id() {
+		return id;
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public double value() {
+		return value;
+	}
+
+	public boolean active() {
+		return active;
+	}
+
+	public char unit() {
+		return unit;
+	}
+
+	public String description() {
+		return description;
+	}
+}